@@ -7,7 +7,7 @@ GO
 
 IF NOT EXISTS (SELECT * FROM sysobjects WHERE name='Employees' and xtype='U')
 	CREATE TABLE Employees (
-		id bigint IDENTITY(1,1) PRIMARY KEY,
+		id bigint PRIMARY KEY,
 		first_name varchar(255) NOT NULL,
 		last_name varchar(255),
 		age int NOT NULL,
@@ -19,6 +19,147 @@ IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'ageIndex')
     CREATE INDEX eligibilityAgeIndex ON Employees (eligibility, age ASC);
 GO
 
+-- Employee ids are allocated by Hibernate from this sequence in blocks of 50, which allows inserts to be batched.
+-- INCREMENT BY must be equal to the allocationSize of Employee.id.
+IF NOT EXISTS (SELECT * FROM sys.sequences WHERE name = 'employee_id_seq')
+	CREATE SEQUENCE employee_id_seq AS bigint START WITH 1 INCREMENT BY 50;
+GO
+
+-- Migration for Employees tables created with id bigint IDENTITY(1,1).
+-- The IDENTITY property cannot be removed with ALTER TABLE, so the table is copied into one without it.
+-- The sequence is then restarted 50 above the largest id, as the first value Hibernate reads from the sequence is
+-- the upper end of its first block of ids.
+IF COLUMNPROPERTY(OBJECT_ID('Employees'), 'id', 'IsIdentity') = 1
+BEGIN
+	BEGIN TRANSACTION;
+
+	CREATE TABLE Employees_migration (
+		id bigint PRIMARY KEY,
+		first_name varchar(255) NOT NULL,
+		last_name varchar(255),
+		age int NOT NULL,
+		eligibility bit NOT NULL,
+	);
+
+	INSERT INTO Employees_migration (id, first_name, last_name, age, eligibility)
+		SELECT id, first_name, last_name, age, eligibility FROM Employees WITH (TABLOCKX);
+
+	DROP TABLE Employees;
+	EXEC sp_rename 'Employees_migration', 'Employees';
+	CREATE INDEX eligibilityAgeIndex ON Employees (eligibility, age ASC);
+
+	DECLARE @restartWith bigint = (SELECT ISNULL(MAX(id), 0) + 50 FROM Employees);
+	EXEC ('ALTER SEQUENCE employee_id_seq RESTART WITH ' + CAST(@restartWith AS varchar(20)));
+
+	COMMIT;
+END
+GO
+
+-- Set by SQL Server on every insert and update of an employee, used by EmployeeChangeLog to list changes since a token
+IF COL_LENGTH('Employees', 'row_version') IS NULL
+	ALTER TABLE Employees ADD row_version rowversion;
+GO
+
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'rowVersionIndex')
+	CREATE INDEX rowVersionIndex ON Employees (row_version);
+GO
+
+-- Ids of deleted employees, with the rowversion of their delete, listed by EmployeeChangeLog as deleted
+IF NOT EXISTS (SELECT * FROM sysobjects WHERE name='EmployeeTombstones' and xtype='U')
+	CREATE TABLE EmployeeTombstones (
+		id bigint PRIMARY KEY,
+		row_version rowversion,
+	)
+GO
+
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'tombstoneRowVersionIndex')
+	CREATE INDEX tombstoneRowVersionIndex ON EmployeeTombstones (row_version);
+GO
+
+-- Version of the whole Employees table, bumped by the triggers below in the same transaction as every statement
+-- that changes employees. Replicated to the slave, and served as the ETag of the employee read endpoints.
+IF NOT EXISTS (SELECT * FROM sysobjects WHERE name='EmployeesVersion' and xtype='U')
+	CREATE TABLE EmployeesVersion (
+		id int PRIMARY KEY,
+		version bigint NOT NULL,
+	)
+GO
+
+IF NOT EXISTS (SELECT * FROM EmployeesVersion WHERE id = 1)
+BEGIN
+	INSERT INTO EmployeesVersion (id, version) VALUES (1, 0);
+END
+GO
+
+-- Every delete, including bulk ones, leaves a tombstone in the same transaction. NOCOUNT keeps the row counts
+-- of the tombstones out of those Hibernate checks for its own statements.
+CREATE OR ALTER TRIGGER employeesDeleted ON Employees AFTER DELETE AS
+BEGIN
+	SET NOCOUNT ON;
+	IF NOT EXISTS (SELECT * FROM deleted) RETURN;
+	DELETE FROM EmployeeTombstones WHERE id IN (SELECT id FROM deleted);
+	INSERT INTO EmployeeTombstones (id) SELECT id FROM deleted;
+	UPDATE EmployeesVersion SET version = version + 1 WHERE id = 1;
+END
+GO
+
+-- An employee inserted again with the id of a deleted one is no longer deleted
+CREATE OR ALTER TRIGGER employeesInserted ON Employees AFTER INSERT AS
+BEGIN
+	SET NOCOUNT ON;
+	IF NOT EXISTS (SELECT * FROM inserted) RETURN;
+	DELETE FROM EmployeeTombstones WHERE id IN (SELECT id FROM inserted);
+	UPDATE EmployeesVersion SET version = version + 1 WHERE id = 1;
+END
+GO
+
+CREATE OR ALTER TRIGGER employeesUpdated ON Employees AFTER UPDATE AS
+BEGIN
+	SET NOCOUNT ON;
+	IF NOT EXISTS (SELECT * FROM inserted) RETURN;
+	UPDATE EmployeesVersion SET version = version + 1 WHERE id = 1;
+END
+GO
+
+-- Progress and checkpoints of asynchronous eligibility jobs, only needed on master
+IF NOT EXISTS (SELECT * FROM sysobjects WHERE name='EligibilityJobs' and xtype='U')
+	CREATE TABLE EligibilityJobs (
+		id bigint IDENTITY(1,1) PRIMARY KEY,
+		after_age int NOT NULL,
+		chunk_size int NOT NULL,
+		status varchar(16) NOT NULL,
+		min_id bigint,
+		max_id bigint,
+		checkpoint_id bigint,
+		rows_processed bigint NOT NULL,
+		elapsed_millis bigint NOT NULL,
+		error varchar(1024),
+		created_at datetime2 NOT NULL,
+		updated_at datetime2 NOT NULL,
+		version bigint NOT NULL,
+	)
+GO
+
+-- Node running each eligibility job and when it last renewed its lease, so that only one node runs a job
+IF COL_LENGTH('EligibilityJobs', 'owner') IS NULL
+	ALTER TABLE EligibilityJobs ADD owner varchar(64), heartbeat_at datetime2;
+GO
+
+-- Single row bumped by ReplicationLagMonitor on every heartbeat, to measure how far the slave is behind
+IF NOT EXISTS (SELECT * FROM sysobjects WHERE name='ReplicationHeartbeat' and xtype='U')
+	CREATE TABLE ReplicationHeartbeat (
+		id int PRIMARY KEY,
+		seq bigint NOT NULL,
+		beat_at datetime2 NOT NULL,
+	)
+GO
+
+IF NOT EXISTS (SELECT * FROM ReplicationHeartbeat WHERE id = 1)
+BEGIN
+	INSERT INTO ReplicationHeartbeat (id, seq, beat_at) VALUES (1, 0, SYSUTCDATETIME());
+END
+GO
+
 -- Checks if login demoUser already exists for this mssql instance
 IF NOT EXISTS (SELECT name FROM master.sys.server_principals WHERE name='demoUser')
 	CREATE LOGIN demoUser WITH PASSWORD = 'demo_pass';
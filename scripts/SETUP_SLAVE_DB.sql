@@ -7,7 +7,7 @@ GO
 
 IF NOT EXISTS (SELECT * FROM sysobjects WHERE name='Employees' and xtype='U')
 	CREATE TABLE Employees (
-		id bigint IDENTITY(1,1) PRIMARY KEY,
+		id bigint PRIMARY KEY,
 		first_name varchar(255) NOT NULL,
 		last_name varchar(255),
 		age int NOT NULL,
@@ -19,6 +19,28 @@ IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'eligibilityAgeIndex')
     CREATE INDEX eligibilityAgeIndex ON Employees (eligibility, age ASC);
 GO
 
+-- Replicated rowversion of the master, which the subscriber stores as binary(8)
+IF COL_LENGTH('Employees', 'row_version') IS NULL
+	ALTER TABLE Employees ADD row_version binary(8);
+GO
+
+-- Single row bumped by ReplicationLagMonitor on the master, to measure how far the slave is behind
+IF NOT EXISTS (SELECT * FROM sysobjects WHERE name='ReplicationHeartbeat' and xtype='U')
+	CREATE TABLE ReplicationHeartbeat (
+		id int PRIMARY KEY,
+		seq bigint NOT NULL,
+		beat_at datetime2 NOT NULL,
+	)
+GO
+
+-- Version of the Employees table, replicated from the master in the same transactions as the employees
+IF NOT EXISTS (SELECT * FROM sysobjects WHERE name='EmployeesVersion' and xtype='U')
+	CREATE TABLE EmployeesVersion (
+		id int PRIMARY KEY,
+		version bigint NOT NULL,
+	)
+GO
+
 -- Checks if login demoUser already exists for this mssql instance
 IF NOT EXISTS (SELECT name FROM master.sys.server_principals WHERE name='demoSlave')
 	CREATE LOGIN demoSlave WITH PASSWORD = 'demo_slave_pass';
@@ -3,6 +3,7 @@ package com.example.demo;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * @SpringBootApplication is shorthand for @Configuration, @EnableAutoConfiguration, @ComponentScan.
@@ -11,8 +12,10 @@ import org.springframework.context.annotation.ComponentScan;
  * settings.
  * @ComponentScan tells SpringBoot to automatically scan within the package for classes marked with @Component, or
  * any other annotations that is a sub-type of it. i.e. @Service, @Controller, @Repository.
+ * @EnableScheduling runs methods annotated with @Scheduled, e.g. the replication heartbeat of ReplicationLagMonitor.
  */
 @SpringBootApplication
+@EnableScheduling
 @ComponentScan(basePackages = {"com.example.demo", "sg.gov.cpf.gpg.commonlib"})
 public class DemoApplication {
 
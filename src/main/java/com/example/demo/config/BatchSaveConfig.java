@@ -0,0 +1,27 @@
+package com.example.demo.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Chunks of parallel batch saves run on their own bounded executor. Every thread holds at most one master
+ * connection at a time, so the number of threads bounds the connections taken by batch saves across all requests.
+ * Once the queue is full, chunks are rejected with a TaskRejectedException and reported as failed.
+ */
+@Configuration
+public class BatchSaveConfig {
+
+    @Bean(name = "batchSaveExecutor")
+    public ThreadPoolTaskExecutor batchSaveExecutor(
+            @Value("${employee.batch-save.parallelism}") Integer parallelism,
+            @Value("${employee.batch-save.queue-capacity}") Integer queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(parallelism);
+        executor.setMaxPoolSize(parallelism);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("batch-save-");
+        return executor;
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.demo.config;
+
+import com.example.demo.repository.ConsistencyContext;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * ConsistencyTokenFilter makes the consistency token presented by the client in the X-Consistency-Token header
+ * available to EmployeeDAO for the duration of the request. A missing or malformed token is treated as no token.
+ *
+ * The token of the request, raised by any writes it makes, is returned to the client by ConsistencyTokenAdvice.
+ */
+@Component
+public class ConsistencyTokenFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        ConsistencyContext.begin(parseToken(request.getHeader(ConsistencyContext.HEADER)));
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ConsistencyContext.end();
+        }
+    }
+
+    private static long parseToken(String header) {
+        if (header == null) {
+            return ConsistencyContext.NO_TOKEN;
+        }
+
+        try {
+            return Long.parseLong(header.trim());
+        } catch (NumberFormatException nfe) {
+            return ConsistencyContext.NO_TOKEN;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.demo.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Eligibility jobs run on their own bounded executor rather than on Tomcat request threads.
+ *
+ * Both the number of threads and the queue are bounded, so that a burst of submissions cannot take up every
+ * master connection. Once the queue is full, submissions are rejected with a TaskRejectedException.
+ */
+@Configuration
+public class EligibilityJobConfig {
+
+    @Bean(name = "eligibilityJobExecutor")
+    public ThreadPoolTaskExecutor eligibilityJobExecutor(
+            @Value("${employee.eligibility.job.threads}") Integer threads,
+            @Value("${employee.eligibility.job.queue-capacity}") Integer queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("eligibility-job-");
+        return executor;
+    }
+}
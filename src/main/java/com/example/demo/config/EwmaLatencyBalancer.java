@@ -0,0 +1,38 @@
+package com.example.demo.config;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * EwmaLatencyBalancer picks two replicas at random and chooses the one with the lower cost, where the cost is the
+ * latency moving average of the replica multiplied by its borrowed connections plus one. The latency is the time
+ * taken to hand out a connection and execute its statements, see ReplicaSetDataSource.
+ *
+ * Comparing two random replicas instead of always taking the cheapest one keeps a burst of requests from all
+ * landing on the same replica before its statistics catch up.
+ */
+public class EwmaLatencyBalancer implements ReplicaBalancer {
+
+    @Override
+    public Replica choose(List<Replica> replicas) {
+        if (replicas.size() == 1) {
+            return replicas.get(0);
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(replicas.size());
+        int second = random.nextInt(replicas.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+
+        Replica a = replicas.get(first);
+        Replica b = replicas.get(second);
+        return cost(a) <= cost(b) ? a : b;
+    }
+
+    private static double cost(Replica replica) {
+        // Replicas without samples yet cost nothing, so that they are tried
+        return replica.getLatencyEwmaNanos() * (replica.getActiveConnections() + 1);
+    }
+}
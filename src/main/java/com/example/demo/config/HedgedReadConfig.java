@@ -0,0 +1,29 @@
+package com.example.demo.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Both attempts of a hedged read run on this executor, so that the request thread can stop waiting for the first
+ * attempt once the hedge delay has passed.
+ *
+ * The queue is kept short, as a read waiting in the queue is already late. Once it is full, reads are run on the
+ * request thread without hedging.
+ */
+@Configuration
+public class HedgedReadConfig {
+
+    @Bean(name = "hedgedReadExecutor")
+    public ThreadPoolTaskExecutor hedgedReadExecutor(
+            @Value("${employee.hedging.threads}") Integer threads,
+            @Value("${employee.hedging.queue-capacity}") Integer queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("hedged-read-");
+        return executor;
+    }
+}
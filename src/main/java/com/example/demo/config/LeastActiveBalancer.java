@@ -0,0 +1,20 @@
+package com.example.demo.config;
+
+import java.util.List;
+
+/**
+ * LeastActiveBalancer chooses the replica with the fewest borrowed connections.
+ */
+public class LeastActiveBalancer implements ReplicaBalancer {
+
+    @Override
+    public Replica choose(List<Replica> replicas) {
+        Replica least = replicas.get(0);
+        for (Replica replica : replicas) {
+            if (replica.getActiveConnections() < least.getActiveConnections()) {
+                least = replica;
+            }
+        }
+        return least;
+    }
+}
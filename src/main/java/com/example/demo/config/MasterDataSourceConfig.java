@@ -40,6 +40,8 @@ public class MasterDataSourceConfig {
     private String driverClassName;
     private Boolean showSQL;
     private Boolean formatSQL;
+    // Number of statements Hibernate sends to the db in a single JDBC batch
+    private Integer jdbcBatchSize;
     // Max active connections during any heavy load
     private Integer tomcatMaxActiveConnections;
     // Min active connections during low load
@@ -62,6 +64,7 @@ public class MasterDataSourceConfig {
                                   @Value("${spring.datasource.driver-class-name}") String driverClassName,
                                   @Value("${spring.jpa.show-sql}") Boolean showSQL,
                                   @Value("${spring.jpa.properties.hibernate.format_sql}") Boolean formatSQL,
+                                  @Value("${spring.jpa.properties.hibernate.jdbc.batch_size}") Integer jdbcBatchSize,
                                   @Value("${spring.datasource.tomcat.max-active}") Integer tomcatMaxActiveConnections,
                                   @Value("${spring.datasource.tomcat.max-idle}") Integer tomcatMaxIdleConnections,
                                   @Value("${spring.datasource.tomcat.time-between-eviction-runs-millis}") Integer tomcatTimeBetweenEvictionRunsInMillis,
@@ -74,6 +77,7 @@ public class MasterDataSourceConfig {
         this.driverClassName = driverClassName;
         this.showSQL = showSQL;
         this.formatSQL = formatSQL;
+        this.jdbcBatchSize = jdbcBatchSize;
         this.tomcatMaxActiveConnections = tomcatMaxActiveConnections;
         this.tomcatMaxIdleConnections = tomcatMaxIdleConnections;
         this.tomcatTimeBetweenEvictionRunsInMillis = tomcatTimeBetweenEvictionRunsInMillis;
@@ -113,6 +117,9 @@ public class MasterDataSourceConfig {
      * interface.
      * LocalContainerEntityManagerFactoryBean creates a JPA EntityManagerFactory according to the JPA's standard
      * bootstrap contract. This EntityManagerFactory can then be passed to our repository via dependency injection.
+     *
+     * hibernate.jdbc.batch_size groups inserts and updates into JDBC batches. order_inserts and order_updates sort
+     * the statements by entity so that a flush of mixed entities does not break a batch into many small ones.
      */
     @Bean(name = "masterEntityManagerFactory")
     @Primary
@@ -124,6 +131,9 @@ public class MasterDataSourceConfig {
                 "org.hibernate.boot.model.naming.ImplicitNamingStrategyJpaCompliantImpl");
         properties.put("hibernate.show_sql", String.valueOf(showSQL));
         properties.put("hibernate.format_sql", String.valueOf(formatSQL));
+        properties.put("hibernate.jdbc.batch_size", String.valueOf(jdbcBatchSize));
+        properties.put("hibernate.order_inserts", "true");
+        properties.put("hibernate.order_updates", "true");
         LocalContainerEntityManagerFactoryBean factoryBean = new LocalContainerEntityManagerFactoryBean();
         factoryBean.setDataSource(masterDataSource());
         factoryBean.setPackagesToScan("com.example.demo.model");
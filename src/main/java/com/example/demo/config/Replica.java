@@ -0,0 +1,70 @@
+package com.example.demo.config;
+
+import javax.sql.DataSource;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Replica is one read replica of a ReplicaSetDataSource, together with the load and health statistics that
+ * ReplicaBalancer implementations choose replicas by.
+ */
+public class Replica {
+
+    // Weight of each new latency sample in the moving average
+    static final double EWMA_ALPHA = 0.2;
+
+    private final String name;
+    private final DataSource dataSource;
+    private final AtomicInteger activeConnections = new AtomicInteger();
+    private volatile double latencyEwmaNanos;
+    private volatile boolean healthy = true;
+
+    public Replica(String name, DataSource dataSource) {
+        this.name = name;
+        this.dataSource = dataSource;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    /**
+     * @return the number of connections to this replica that are currently borrowed
+     */
+    public int getActiveConnections() {
+        return activeConnections.get();
+    }
+
+    /**
+     * @return the exponentially weighted moving average, over returned connections, of the time taken to hand out
+     * a connection to this replica and to execute its statements, or 0 if no connection has been returned yet
+     */
+    public double getLatencyEwmaNanos() {
+        return latencyEwmaNanos;
+    }
+
+    public boolean isHealthy() {
+        return healthy;
+    }
+
+    void setHealthy(boolean healthy) {
+        this.healthy = healthy;
+    }
+
+    void connectionBorrowed() {
+        activeConnections.incrementAndGet();
+    }
+
+    /**
+     * @param latencyNanos time taken to hand out the connection and to execute its statements
+     */
+    void connectionReturned(long latencyNanos) {
+        activeConnections.decrementAndGet();
+        // Lost updates between concurrent returns only drop a sample, which the average tolerates
+        double previous = latencyEwmaNanos;
+        latencyEwmaNanos = previous == 0 ? latencyNanos : previous + EWMA_ALPHA * (latencyNanos - previous);
+    }
+}
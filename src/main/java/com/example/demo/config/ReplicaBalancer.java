@@ -0,0 +1,30 @@
+package com.example.demo.config;
+
+import java.util.List;
+
+/**
+ * ReplicaBalancer decides which replica of a ReplicaSetDataSource serves the next connection.
+ */
+public interface ReplicaBalancer {
+
+    /**
+     * @param replicas the replicas to choose from, never empty
+     */
+    Replica choose(List<Replica> replicas);
+
+    /**
+     * @param name round-robin, least-active or ewma
+     */
+    static ReplicaBalancer named(String name) {
+        switch (name) {
+            case "round-robin":
+                return new RoundRobinBalancer();
+            case "least-active":
+                return new LeastActiveBalancer();
+            case "ewma":
+                return new EwmaLatencyBalancer();
+            default:
+                throw new IllegalArgumentException("Unknown replica balancer: " + name);
+        }
+    }
+}
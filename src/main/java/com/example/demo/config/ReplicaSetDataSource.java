@@ -0,0 +1,260 @@
+package com.example.demo.config;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+
+/**
+ * ReplicaSetDataSource spreads connections over a set of read replicas, each with its own connection pool.
+ *
+ * The replica that serves each connection is chosen by the ReplicaBalancer among the healthy replicas. Every
+ * connection handed out is wrapped so that the replica knows how many of its connections are borrowed, and how long
+ * it took to hand out the connection and to execute its statements, which the balancers use as its load and
+ * latency. The time a caller holds a connection without running a statement on it is not counted, so that slow
+ * callers do not make a healthy replica look slow.
+ *
+ * Replicas are health checked on a fixed delay. A replica that fails a health check, or fails to hand out a
+ * connection, is ejected until it passes a health check again. If every replica is ejected, all of them are tried
+ * anyway, so that the caller gets the actual error of the db.
+ *
+ * Reads can be run on a Route, e.g. by hedged reads, to find out which replica served them, to keep them off a
+ * given replica, and to cancel their statements while they are running.
+ */
+public class ReplicaSetDataSource extends AbstractDataSource {
+
+    private static final ThreadLocal<Route> ROUTE = new ThreadLocal<>();
+
+    private final List<Replica> replicas;
+    private final ReplicaBalancer balancer;
+    private final int healthCheckTimeoutSeconds;
+
+    public ReplicaSetDataSource(List<Replica> replicas, ReplicaBalancer balancer, int healthCheckTimeoutSeconds) {
+        if (replicas.isEmpty()) {
+            throw new IllegalArgumentException("At least one replica is required");
+        }
+        this.replicas = List.copyOf(replicas);
+        this.balancer = balancer;
+        this.healthCheckTimeoutSeconds = healthCheckTimeoutSeconds;
+    }
+
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return connect(DataSource::getConnection);
+    }
+
+    /**
+     * Borrows the connection with the given credentials from the pool of the chosen replica. Tomcat pools only use
+     * them if alternateUsernameAllowed is set, and otherwise hand out a connection with their own credentials.
+     */
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return connect(dataSource -> dataSource.getConnection(username, password));
+    }
+
+    private Connection connect(Connector connector) throws SQLException {
+        List<Replica> candidates = new ArrayList<>(replicas.size());
+        for (Replica replica : replicas) {
+            if (replica.isHealthy()) {
+                candidates.add(replica);
+            }
+        }
+        if (candidates.isEmpty()) {
+            candidates.addAll(replicas);
+        }
+        Route route = ROUTE.get();
+        if (route != null && candidates.size() > 1) {
+            candidates.remove(route.avoid);
+        }
+
+        SQLException lastFailure = null;
+        while (!candidates.isEmpty()) {
+            Replica replica = balancer.choose(candidates);
+            try {
+                return borrow(replica, route, connector);
+            } catch (SQLException se) {
+                replica.setHealthy(false);
+                candidates.remove(replica);
+                lastFailure = se;
+            }
+        }
+        throw lastFailure;
+    }
+
+    private Connection borrow(Replica replica, Route route, Connector connector) throws SQLException {
+        long requestedAt = System.nanoTime();
+        Connection connection = connector.connect(replica.getDataSource());
+        // Time to hand out the connection plus time spent executing its statements
+        long[] latencyNanos = {System.nanoTime() - requestedAt};
+        replica.connectionBorrowed();
+        if (route != null) {
+            route.chosen = replica;
+        }
+        boolean[] returned = {false};
+
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if ("close".equals(method.getName()) && !returned[0]) {
+                        returned[0] = true;
+                        replica.connectionReturned(latencyNanos[0]);
+                    }
+                    Object result;
+                    try {
+                        result = method.invoke(connection, args);
+                    } catch (InvocationTargetException ite) {
+                        throw ite.getTargetException();
+                    }
+                    if (result instanceof Statement statement) {
+                        if (route != null) {
+                            route.track(statement);
+                        }
+                        return timed(statement, method.getReturnType(), latencyNanos);
+                    }
+                    return result;
+                });
+    }
+
+    /**
+     * Wraps the statement so that the time spent in its execute methods is added to latencyNanos.
+     *
+     * @param type the Statement interface the connection returned the statement as
+     */
+    private static Object timed(Statement statement, Class<?> type, long[] latencyNanos) {
+        if (!type.isInterface() || !Statement.class.isAssignableFrom(type)) {
+            return statement;
+        }
+
+        return Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    boolean execute = method.getName().startsWith("execute");
+                    long start = System.nanoTime();
+                    try {
+                        return method.invoke(statement, args);
+                    } catch (InvocationTargetException ite) {
+                        throw ite.getTargetException();
+                    } finally {
+                        if (execute) {
+                            latencyNanos[0] += System.nanoTime() - start;
+                        }
+                    }
+                });
+    }
+
+    private interface Connector {
+        Connection connect(DataSource dataSource) throws SQLException;
+    }
+
+    /**
+     * @return true if a healthy replica other than the given one exists
+     */
+    public boolean hasHealthyReplicaOtherThan(Replica replica) {
+        for (Replica other : replicas) {
+            if (other != replica && other.isHealthy()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Runs the read with every connection it borrows from a ReplicaSetDataSource on the current thread going
+     * through the route.
+     */
+    public static <T> T routed(Route route, Supplier<T> read) {
+        ROUTE.set(route);
+        try {
+            return read.get();
+        } finally {
+            ROUTE.remove();
+        }
+    }
+
+    /**
+     * Ejects replicas that cannot hand out a valid connection, and re-admits those that can again.
+     */
+    @Scheduled(fixedDelayString = "${employee.replicas.health-check-interval-millis}")
+    public void checkHealth() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.getDataSource().getConnection()) {
+                replica.setHealthy(connection.isValid(healthCheckTimeoutSeconds));
+            } catch (SQLException se) {
+                replica.setHealthy(false);
+            }
+        }
+    }
+
+    /**
+     * Route of the reads made within ReplicaSetDataSource.routed.
+     */
+    public static final class Route {
+
+        private final Replica avoid;
+        private final Queue<Statement> statements = new ConcurrentLinkedQueue<>();
+        private volatile Replica chosen;
+        private volatile boolean cancelled;
+
+        /**
+         * @param avoid the replica to keep the reads off if another one is available, or null
+         */
+        public Route(Replica avoid) {
+            this.avoid = avoid;
+        }
+
+        /**
+         * @return the replica that served the latest connection, or null if none has been borrowed yet
+         */
+        public Replica getChosen() {
+            return chosen;
+        }
+
+        /**
+         * Cancels the statements of the route that are running, and any it creates from now on.
+         */
+        public void cancel() {
+            cancelled = true;
+            for (Statement statement : statements) {
+                cancel(statement);
+            }
+        }
+
+        private void track(Statement statement) {
+            statements.add(statement);
+            if (cancelled) {
+                cancel(statement);
+            }
+        }
+
+        private static void cancel(Statement statement) {
+            try {
+                statement.cancel();
+            } catch (SQLException se) {
+                // The statement has already finished or been closed
+            }
+        }
+    }
+
+    /**
+     * Called by Spring when the context is closed, as the inferred destroy method of the bean.
+     */
+    public void close() {
+        for (Replica replica : replicas) {
+            if (replica.getDataSource() instanceof org.apache.tomcat.jdbc.pool.DataSource pool) {
+                pool.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.demo.config;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * RoundRobinBalancer hands out the replicas in turn, regardless of their load.
+ */
+public class RoundRobinBalancer implements ReplicaBalancer {
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    @Override
+    public Replica choose(List<Replica> replicas) {
+        return replicas.get(Math.floorMod(next.getAndIncrement(), replicas.size()));
+    }
+}
@@ -14,7 +14,9 @@ import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
 import org.springframework.transaction.PlatformTransactionManager;
 
 import javax.sql.DataSource;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -23,6 +25,10 @@ import java.util.Map;
  * create repositories discovered through this annotation.
  * includeFilters specifies which types are eligible for component scanning. In this case, we are adding our custom
  * annotation @ReadOnlyRepository to be scanned.
+ *
+ * The slave can be a set of read replicas, one per url in spring.datasource.slave_urls, each with its own pool.
+ * Configurations with the single spring.datasource.slave_url of before are still accepted, as a set of one replica.
+ * Connections are spread over them by the balancer named by employee.replicas.balancer.
  */
 @Configuration
 @EnableJpaRepositories(
@@ -33,7 +39,7 @@ import java.util.Map;
 )
 public class SlaveDataSourceConfig {
 
-    private String url;
+    private String[] urls;
     private String username;
     private String password;
     private String driverClassName;
@@ -53,9 +59,11 @@ public class SlaveDataSourceConfig {
      * Setting removeAbandoned = true will close the connection after the time limit set for removeAbandonedTimeout.
      */
     private Boolean tomcatRemoveAbandonedConnections;
+    private String balancer;
+    private Integer healthCheckTimeoutSeconds;
 
     @Autowired
-    public SlaveDataSourceConfig(@Value("${spring.datasource.slave_url}") String url,
+    public SlaveDataSourceConfig(@Value("${spring.datasource.slave_urls:${spring.datasource.slave_url}}") String[] urls,
                                   @Value("${spring.datasource.slave_username}") String username,
                                   @Value("${spring.datasource.slave_password}") String password,
                                   @Value("${spring.datasource.driver-class-name}") String driverClassName,
@@ -65,9 +73,11 @@ public class SlaveDataSourceConfig {
                                   @Value("${spring.datasource.tomcat.max-idle}") Integer tomcatMaxIdleConnections,
                                   @Value("${spring.datasource.tomcat.time-between-eviction-runs-millis}") Integer tomcatTimeBetweenEvictionRunsInMillis,
                                   @Value("${spring.datasource.tomcat.min-evictable-idle-time-millis}") Integer tomcatMinTimeForEvictionEligibilityInMillis,
-                                  @Value("${spring.datasource.tomcat.remove-abandoned}") Boolean tomcatRemoveAbandonedConnections
+                                  @Value("${spring.datasource.tomcat.remove-abandoned}") Boolean tomcatRemoveAbandonedConnections,
+                                  @Value("${employee.replicas.balancer}") String balancer,
+                                  @Value("${employee.replicas.health-check-timeout-seconds}") Integer healthCheckTimeoutSeconds
     ) {
-        this.url = url;
+        this.urls = urls;
         this.username = username;
         this.password = password;
         this.driverClassName = driverClassName;
@@ -78,13 +88,23 @@ public class SlaveDataSourceConfig {
         this.tomcatTimeBetweenEvictionRunsInMillis = tomcatTimeBetweenEvictionRunsInMillis;
         this.tomcatMinTimeForEvictionEligibilityInMillis = tomcatMinTimeForEvictionEligibilityInMillis;
         this.tomcatRemoveAbandonedConnections = tomcatRemoveAbandonedConnections;
+        this.balancer = balancer;
+        this.healthCheckTimeoutSeconds = healthCheckTimeoutSeconds;
     }
 
     /**
      * Notice that @Primary annotation is not used here.
      */
     @Bean
-    public DataSource slaveDataSource() {
+    public ReplicaSetDataSource slaveDataSource() {
+        List<Replica> replicas = new ArrayList<>(urls.length);
+        for (String url : urls) {
+            replicas.add(new Replica(url, replicaPool(url.trim())));
+        }
+        return new ReplicaSetDataSource(replicas, ReplicaBalancer.named(balancer), healthCheckTimeoutSeconds);
+    }
+
+    private DataSource replicaPool(String url) {
         PoolProperties poolProperties = new PoolProperties();
         poolProperties.setUrl(url);
         poolProperties.setUsername(username);
@@ -0,0 +1,43 @@
+package com.example.demo.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Streamed responses (StreamingResponseBody) are written on an async thread after the controller method returns.
+ *
+ * Spring Boot only provides its default applicationTaskExecutor when no other Executor bean exists, which is no
+ * longer the case since eligibilityJobExecutor was added. Without this config, Spring MVC falls back to a
+ * SimpleAsyncTaskExecutor that starts a new thread for every streamed response.
+ */
+@Configuration
+public class WebAsyncConfig implements WebMvcConfigurer {
+
+    private final Integer threads;
+    private final long timeoutMillis;
+
+    public WebAsyncConfig(@Value("${employee.stream.threads}") Integer threads,
+                          @Value("${employee.stream.timeout-millis}") long timeoutMillis) {
+        this.threads = threads;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    @Bean(name = "streamingResponseExecutor")
+    public ThreadPoolTaskExecutor streamingResponseExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setThreadNamePrefix("employee-stream-");
+        return executor;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(streamingResponseExecutor());
+        configurer.setDefaultTimeout(timeoutMillis);
+    }
+}
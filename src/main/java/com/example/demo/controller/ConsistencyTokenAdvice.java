@@ -0,0 +1,37 @@
+package com.example.demo.controller;
+
+import com.example.demo.repository.ConsistencyContext;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * ConsistencyTokenAdvice returns the consistency token of the request in the X-Consistency-Token header, e.g.
+ * after /employee/register. Presenting it on later requests makes their reads see the writes made so far.
+ *
+ * The header has to be added before the body is written, as the response is committed once it is.
+ */
+@RestControllerAdvice
+public class ConsistencyTokenAdvice implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        long token = ConsistencyContext.getToken();
+        if (token != ConsistencyContext.NO_TOKEN) {
+            response.getHeaders().set(ConsistencyContext.HEADER, Long.toString(token));
+        }
+
+        return body;
+    }
+}
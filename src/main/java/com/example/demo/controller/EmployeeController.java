@@ -1,24 +1,69 @@
 package com.example.demo.controller;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 
+import com.example.demo.controller.response.AgePercentileResponse;
+import com.example.demo.controller.response.AgeRangeCountResponse;
+import com.example.demo.controller.response.BatchSaveResultResponse;
 import com.example.demo.controller.response.CountEligibleResponse;
 import com.example.demo.controller.response.EligibilityAfterResponse;
+import com.example.demo.controller.response.EligibilityJobResponse;
+import com.example.demo.controller.response.EmployeeCountResponse;
 import com.example.demo.controller.response.EmployeeNamesResponse;
+import com.example.demo.controller.response.EmployeePageResponse;
 import com.example.demo.controller.response.EmployeeResponse;
+import com.example.demo.controller.response.EmployeeRecordsResponse;
 import com.example.demo.controller.response.EmployeeResponseMessage;
+import com.example.demo.controller.response.EmployeeStatsResponse;
 import com.example.demo.controller.response.EmployeesResponse;
+import com.example.demo.controller.response.FirstNameCountsResponse;
+import com.example.demo.controller.response.EmployeeChangesResponse;
+import com.example.demo.controller.response.IngestionSummaryResponse;
+import com.example.demo.controller.response.ProjectedEmployeesResponse;
+import com.example.demo.exception.EmployeeIngestionException;
+import com.example.demo.exception.InvalidCursorException;
 import com.example.demo.exception.InvalidEmployeeAgeException;
+import com.example.demo.exception.InvalidFieldsException;
+import com.example.demo.model.EligibilityJob;
 import com.example.demo.model.Employee;
+import com.example.demo.model.BatchSaveResult;
+import com.example.demo.model.EmployeeChanges;
+import com.example.demo.model.EmployeeField;
+import com.example.demo.model.EmployeeFilter;
+import com.example.demo.model.EmployeePage;
+import com.example.demo.model.EmployeeRecord;
+import com.example.demo.model.EmployeeStats;
+import com.example.demo.model.FirstNameCount;
+import com.example.demo.model.IngestionSummary;
+import com.example.demo.model.ProjectedEmployees;
+import com.example.demo.model.Versioned;
+import com.example.demo.service.EligibilityJobService;
+import com.example.demo.service.EmployeeIngestionService;
 import com.example.demo.service.EmployeeService;
+import com.example.demo.service.EmployeeStatsService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.dao.DataAccessException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * @RestController is a shorthand for @Controller and @ResponseBody.
@@ -32,34 +77,253 @@ import org.springframework.web.bind.annotation.*;
 public class EmployeeController {
 
     private final EmployeeService service;
+    private final EligibilityJobService jobService;
+    private final EmployeeIngestionService ingestionService;
+    private final EmployeeStatsService statsService;
+    private final ObjectMapper objectMapper;
+    private final int maxPageSize;
 
-    public EmployeeController(EmployeeService service) {
+    public EmployeeController(EmployeeService service, EligibilityJobService jobService,
+                              EmployeeIngestionService ingestionService, EmployeeStatsService statsService,
+                              ObjectMapper objectMapper, @Value("${employee.page.max-size}") int maxPageSize) {
         this.service = service;
+        this.jobService = jobService;
+        this.ingestionService = ingestionService;
+        this.statsService = statsService;
+        this.objectMapper = objectMapper;
+        this.maxPageSize = maxPageSize;
+    }
+
+    /**
+     * @return a strong ETag for the version of the data a response is read from, or null if it is not known
+     */
+    private static String eTag(String version) {
+        return version == null ? null : "\"" + version + "\"";
+    }
+
+    /**
+     * Returns true if the client already has the version of the data that etag stands for, in which case the read
+     * endpoints answer 304 Not Modified without reading it.
+     *
+     * If-None-Match uses the weak comparison, so W/ prefixes are ignored: proxies and response compression may
+     * have weakened the ETag the client got.
+     */
+    private static boolean isNotModified(String etag, String ifNoneMatch) {
+        if (etag == null || ifNoneMatch == null) {
+            return false;
+        }
+        String opaqueTag = withoutWeakPrefix(etag);
+        for (String match : ifNoneMatch.split(",")) {
+            String trimmed = match.trim();
+            if (trimmed.equals("*") || withoutWeakPrefix(trimmed).equals(opaqueTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String withoutWeakPrefix(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    private static ResponseEntity.BodyBuilder okWithETag(String etag) {
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok();
+        return etag == null ? ok : ok.eTag(etag);
     }
 
     @GetMapping("/get")
-    public ResponseEntity<EmployeesResponse> getEmployees() {
+    public ResponseEntity<EmployeeRecordsResponse> getEmployees(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        try {
+            // Only the version row is read to answer a client that has the current employees
+            if (ifNoneMatch != null) {
+                String etag = eTag(this.service.getEmployeesVersion());
+                if (isNotModified(etag, ifNoneMatch)) {
+                    return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+                }
+            }
+
+            Versioned<ArrayList<EmployeeRecord>> employees = this.service.getEmployees();
+            EmployeeRecordsResponse response = new EmployeeRecordsResponse(employees.value(),
+                    EmployeeResponseMessage.GET_ALL_SUCCESS);
+            return okWithETag(eTag(employees.version())).body(response);
+        } catch (DataAccessException dae) {
+            EmployeeRecordsResponse response = new EmployeeRecordsResponse(null,
+                    EmployeeResponseMessage.GET_ALL_ERROR);
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+
+    /**
+     * Same as /get, but every employee only has the fields listed in fields, e.g. fields=id,eligibility. Only the
+     * columns of those fields are selected from the db.
+     *
+     * Only /get takes fields: /get/stream, /page, /filter and /changes always return whole employees.
+     */
+    @GetMapping(value = "/get", params = "fields")
+    public ResponseEntity<ProjectedEmployeesResponse> getEmployeeFields(
+            @RequestParam("fields") String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
-            ArrayList<Employee> employees = this.service.getEmployees();
-            EmployeesResponse response = new EmployeesResponse(employees, EmployeeResponseMessage.GET_ALL_SUCCESS);
+            // Parsed first, so that invalid fields are rejected even for a client with the current employees
+            Set<EmployeeField> parsedFields = EmployeeField.parse(fields);
+            if (ifNoneMatch != null) {
+                String etag = eTag(this.service.getEmployeesVersion());
+                if (isNotModified(etag, ifNoneMatch)) {
+                    return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+                }
+            }
+
+            Versioned<ProjectedEmployees> employees = this.service.getEmployees(parsedFields);
+            ProjectedEmployeesResponse response = new ProjectedEmployeesResponse(employees.value(),
+                    EmployeeResponseMessage.GET_ALL_SUCCESS);
+            return okWithETag(eTag(employees.version())).body(response);
+        } catch (InvalidFieldsException ife) {
+            ProjectedEmployeesResponse response = new ProjectedEmployeesResponse(null,
+                    EmployeeResponseMessage.INVALID_FIELDS);
+            return ResponseEntity.badRequest().body(response);
+        } catch (DataAccessException dae) {
+            ProjectedEmployeesResponse response = new ProjectedEmployeesResponse(null,
+                    EmployeeResponseMessage.GET_ALL_ERROR);
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+
+    /**
+     * Streaming variant of /get with the same JSON shape as EmployeesResponse.
+     *
+     * StreamingResponseBody is written after this method returns, on an async thread. Employees are written to the
+     * response as they are read from the db, so memory use stays constant and the first bytes are sent before the
+     * last row is read. As the status is sent with the first bytes, a failure halfway through can only be seen by
+     * the client as a truncated response.
+     */
+    @GetMapping(
+            value = "/get/stream",
+            produces = {MediaType.APPLICATION_JSON_VALUE}
+    )
+    public ResponseEntity<StreamingResponseBody> streamEmployees() {
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.writeStartObject();
+                generator.writeArrayFieldStart("employees");
+                service.streamEmployees(employee -> {
+                    try {
+                        generator.writeObject(employee);
+                    } catch (IOException ioe) {
+                        throw new UncheckedIOException(ioe);
+                    }
+                });
+                generator.writeEndArray();
+                generator.writeStringField("msg", EmployeeResponseMessage.GET_ALL_SUCCESS);
+                generator.writeEndObject();
+            }
+        };
+
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    /**
+     * Keyset-paginated listing. Pass the nextCursor of a response as the cursor of the next request to get the
+     * following page. Without a cursor, the first page of all employees in id order is returned, or the first page
+     * of employees with the given eligibility in (age, id) order.
+     */
+    @GetMapping(
+            value = "/page",
+            produces = {MediaType.APPLICATION_JSON_VALUE}
+    )
+    public ResponseEntity<EmployeePageResponse> getEmployeePage(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "100") int size,
+            @RequestParam(value = "eligibility", required = false) Boolean eligibility) {
+        try {
+            int pageSize = Math.max(1, Math.min(size, maxPageSize));
+            EmployeePage page = this.service.getEmployeePage(cursor, pageSize, eligibility);
+            EmployeePageResponse response = new EmployeePageResponse(page.employees(), page.nextCursor(),
+                    EmployeeResponseMessage.GET_PAGE_SUCCESS);
             return ResponseEntity.ok(response);
+        } catch (InvalidCursorException ice) {
+            EmployeePageResponse response = new EmployeePageResponse(null, null,
+                    EmployeeResponseMessage.INVALID_CURSOR);
+            return ResponseEntity.badRequest().body(response);
         } catch (DataAccessException dae) {
-            EmployeesResponse response = new EmployeesResponse(null, EmployeeResponseMessage.GET_ALL_ERROR);
+            EmployeePageResponse response = new EmployeePageResponse(null, null,
+                    EmployeeResponseMessage.GET_PAGE_ERROR);
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+
+    /**
+     * Lists the employees inserted, updated or deleted since the change token, so that clients keeping a copy of the
+     * table only fetch what changed. Start with since=0 for every employee, then pass the nextToken of each response
+     * as since. Deleted employees are listed by id. While hasMore is true, there are more changes to fetch right away.
+     */
+    @GetMapping(
+            value = "/changes",
+            produces = {MediaType.APPLICATION_JSON_VALUE}
+    )
+    public ResponseEntity<EmployeeChangesResponse> getEmployeeChanges(
+            @RequestParam(value = "since", defaultValue = "0") long since,
+            @RequestParam(value = "limit", defaultValue = "1000") int limit) {
+        if (since < 0) {
+            EmployeeChangesResponse response = new EmployeeChangesResponse(null,
+                    EmployeeResponseMessage.INVALID_CHANGE_TOKEN);
+            return ResponseEntity.badRequest().body(response);
+        }
+
+        try {
+            EmployeeChanges changes = this.service.getEmployeeChanges(since, Math.max(1, Math.min(limit, maxPageSize)));
+            EmployeeChangesResponse response = new EmployeeChangesResponse(changes,
+                    EmployeeResponseMessage.GET_CHANGES_SUCCESS);
+            return ResponseEntity.ok(response);
+        } catch (DataAccessException dae) {
+            EmployeeChangesResponse response = new EmployeeChangesResponse(null,
+                    EmployeeResponseMessage.GET_CHANGES_ERROR);
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+
+    /**
+     * Lists at most limit employees, in id order, matching every given predicate. Ages are in [minAge, maxAge),
+     * and name prefixes are case-insensitive. Repeating a prefix parameter matches names starting with any of them.
+     */
+    @GetMapping(
+            value = "/filter",
+            produces = {MediaType.APPLICATION_JSON_VALUE}
+    )
+    public ResponseEntity<EmployeesResponse> filterEmployees(
+            @RequestParam(value = "eligibility", required = false) Boolean eligibility,
+            @RequestParam(value = "minAge", required = false) Integer minAge,
+            @RequestParam(value = "maxAge", required = false) Integer maxAge,
+            @RequestParam(value = "firstNamePrefix", required = false) List<String> firstNamePrefixes,
+            @RequestParam(value = "lastNamePrefix", required = false) List<String> lastNamePrefixes,
+            @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        try {
+            EmployeeFilter filter = new EmployeeFilter(eligibility, minAge, maxAge, firstNamePrefixes,
+                    lastNamePrefixes);
+            ArrayList<Employee> employees = this.service.filterEmployees(filter,
+                    Math.max(1, Math.min(limit, maxPageSize)));
+            EmployeesResponse response = new EmployeesResponse(employees, EmployeeResponseMessage.FILTER_SUCCESS);
+            return ResponseEntity.ok(response);
+        } catch (DataAccessException dae) {
+            EmployeesResponse response = new EmployeesResponse(null, EmployeeResponseMessage.FILTER_ERROR);
             return ResponseEntity.internalServerError().body(response);
         }
     }
 
     @GetMapping("/names")
-    public ResponseEntity<EmployeeNamesResponse> getDistinctEmployeeFirstNames() {
+    public ResponseEntity<EmployeeNamesResponse> getDistinctEmployeeFirstNames(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
-            ArrayList<String> firstNames = new ArrayList<>();
-            Collection<Employee> employees = this.service.findEmployeesWithDistinctFirstName();
-            employees.forEach(e -> {
-                firstNames.add(e.getFirstName());
-            });
+            // Taken before the names, so that they are at least as new as the version they are tagged with
+            String etag = eTag(this.service.getEmployeesVersion());
+            if (isNotModified(etag, ifNoneMatch)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+
+            ArrayList<String> firstNames = this.service.getDistinctFirstNames();
             EmployeeNamesResponse response = new EmployeeNamesResponse(firstNames,
                     EmployeeResponseMessage.DISTINCT_FIRST_NAMES_SUCCESS);
-            return ResponseEntity.ok(response);
+            return okWithETag(etag).body(response);
         } catch (DataAccessException dae) {
             EmployeeNamesResponse response = new EmployeeNamesResponse(null,
                     EmployeeResponseMessage.DISTINCT_FIRST_NAMES_ERROR);
@@ -67,13 +331,147 @@ public class EmployeeController {
         }
     }
 
+    /**
+     * Lists the n most common first names, most common first, with the number of employees that have each.
+     */
+    @GetMapping("/names/top")
+    public ResponseEntity<FirstNameCountsResponse> getMostCommonFirstNames(
+            @RequestParam(value = "n", defaultValue = "10") int n) {
+        try {
+            List<FirstNameCount> names = this.service.getMostCommonFirstNames(Math.max(1, Math.min(n, maxPageSize)));
+            FirstNameCountsResponse response = new FirstNameCountsResponse(names,
+                    EmployeeResponseMessage.MOST_COMMON_FIRST_NAMES_SUCCESS);
+            return ResponseEntity.ok(response);
+        } catch (DataAccessException dae) {
+            FirstNameCountsResponse response = new FirstNameCountsResponse(null,
+                    EmployeeResponseMessage.MOST_COMMON_FIRST_NAMES_ERROR);
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+
+    /**
+     * Counts employees, optionally only those of an eligibility and/or older than afterAge.
+     */
+    @GetMapping("/count")
+    public ResponseEntity<EmployeeCountResponse> countEmployees(
+            @RequestParam(value = "eligibility", required = false) Boolean eligibility,
+            @RequestParam(value = "afterAge", required = false) Integer afterAge) {
+        try {
+            long count = service.countEmployees(eligibility, afterAge);
+            EmployeeCountResponse response = new EmployeeCountResponse(eligibility, afterAge, count,
+                    EmployeeResponseMessage.GET_COUNT_SUCCESS);
+            return ResponseEntity.ok(response);
+        } catch (DataAccessException dae) {
+            EmployeeCountResponse response = new EmployeeCountResponse(eligibility, afterAge, -1,
+                    EmployeeResponseMessage.GET_COUNT_ERROR);
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+
+    /**
+     * Counts employees older than olderThan and at most upTo years old, optionally only those of an eligibility.
+     */
+    @GetMapping("/ages/count")
+    public ResponseEntity<AgeRangeCountResponse> countInAgeRange(
+            @RequestParam(value = "eligibility", required = false) Boolean eligibility,
+            @RequestParam(value = "olderThan", defaultValue = "-1") int olderThan,
+            @RequestParam(value = "upTo", defaultValue = "" + Integer.MAX_VALUE) int upTo) {
+        try {
+            long count = service.countInAgeRange(eligibility, olderThan, upTo);
+            AgeRangeCountResponse response = new AgeRangeCountResponse(eligibility, olderThan, upTo, count,
+                    EmployeeResponseMessage.GET_AGE_RANGE_COUNT_SUCCESS);
+            return ResponseEntity.ok(response);
+        } catch (DataAccessException dae) {
+            AgeRangeCountResponse response = new AgeRangeCountResponse(eligibility, olderThan, upTo, -1,
+                    EmployeeResponseMessage.GET_AGE_RANGE_COUNT_ERROR);
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+
+    /**
+     * Lists the employees of an eligibility older than olderThan, youngest first.
+     */
+    @GetMapping(
+            value = "/ages/after",
+            produces = {MediaType.APPLICATION_JSON_VALUE}
+    )
+    public ResponseEntity<EmployeeRecordsResponse> getEmployeesOlderThan(
+            @RequestParam(value = "eligibility") boolean eligibility,
+            @RequestParam(value = "olderThan") int olderThan) {
+        try {
+            ArrayList<EmployeeRecord> employees = service.getEmployeesOlderThan(eligibility, olderThan);
+            EmployeeRecordsResponse response = new EmployeeRecordsResponse(employees,
+                    EmployeeResponseMessage.GET_OLDER_THAN_SUCCESS);
+            return ResponseEntity.ok(response);
+        } catch (DataAccessException dae) {
+            EmployeeRecordsResponse response = new EmployeeRecordsResponse(null,
+                    EmployeeResponseMessage.GET_OLDER_THAN_ERROR);
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+
+    /**
+     * Returns the lowest age such that at least p % of the employees, optionally only those of an eligibility,
+     * are that old or younger. The age is -1 if there are no such employees.
+     */
+    @GetMapping("/ages/percentile")
+    public ResponseEntity<AgePercentileResponse> getAgeAtPercentile(
+            @RequestParam(value = "eligibility", required = false) Boolean eligibility,
+            @RequestParam(value = "p", defaultValue = "50") double p) {
+        if (!(p > 0 && p <= 100)) {
+            AgePercentileResponse response = new AgePercentileResponse(eligibility, p, -1,
+                    EmployeeResponseMessage.INVALID_PERCENTILE);
+            return ResponseEntity.badRequest().body(response);
+        }
+
+        try {
+            int age = service.getAgeAtPercentile(eligibility, p);
+            AgePercentileResponse response = new AgePercentileResponse(eligibility, p, age,
+                    EmployeeResponseMessage.GET_AGE_PERCENTILE_SUCCESS);
+            return ResponseEntity.ok(response);
+        } catch (DataAccessException dae) {
+            AgePercentileResponse response = new AgePercentileResponse(eligibility, p, -1,
+                    EmployeeResponseMessage.GET_AGE_PERCENTILE_ERROR);
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+
+    /**
+     * Eligible and ineligible counts, an age histogram with buckets of bucketWidth years, and the min, max and
+     * mean age of each eligibility, all computed from the same counts. Clients may cache the response for as long
+     * as the server does.
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<EmployeeStatsResponse> getStats(
+            @RequestParam(value = "bucketWidth", defaultValue = "10") int bucketWidth) {
+        try {
+            EmployeeStats stats = statsService.getStats(Math.max(1, bucketWidth));
+            EmployeeStatsResponse response = new EmployeeStatsResponse(stats,
+                    EmployeeResponseMessage.GET_STATS_SUCCESS);
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.maxAge(statsService.getCacheTtlMillis(), TimeUnit.MILLISECONDS))
+                    .body(response);
+        } catch (DataAccessException dae) {
+            EmployeeStatsResponse response = new EmployeeStatsResponse(null,
+                    EmployeeResponseMessage.GET_STATS_ERROR);
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+
     @GetMapping("/count/eligible")
-    public ResponseEntity<CountEligibleResponse> getEligible() {
+    public ResponseEntity<CountEligibleResponse> getEligible(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
+            // Taken before the count, so that it is at least as new as the version it is tagged with
+            String etag = eTag(this.service.getEmployeesVersion());
+            if (isNotModified(etag, ifNoneMatch)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+
             long count = service.countEligible();
             CountEligibleResponse response = new CountEligibleResponse(count,
                     EmployeeResponseMessage.GET_ELIGIBLE_SUCCESS);
-            return ResponseEntity.ok(response);
+            return okWithETag(etag).body(response);
         } catch (DataAccessException dae) {
             CountEligibleResponse response = new CountEligibleResponse(-1,
                     EmployeeResponseMessage.GET_ELIGIBLE_ERROR);
@@ -115,6 +513,11 @@ public class EmployeeController {
             EmployeesResponse response = new EmployeesResponse(registeredEmployees,
                     EmployeeResponseMessage.BATCH_SAVE_SUCCESS);
             return ResponseEntity.ok(response);
+        } catch (InvalidEmployeeAgeException ieae) {
+            ArrayList<Employee> unregisteredEmployees = new ArrayList<>(Arrays.asList(employees));
+            EmployeesResponse response = new EmployeesResponse(unregisteredEmployees,
+                    EmployeeResponseMessage.INVALID_AGE);
+            return ResponseEntity.badRequest().body(response);
         } catch (DataAccessException dae) {
             ArrayList<Employee> unregisteredEmployees = new ArrayList<>(Arrays.asList(employees));
             EmployeesResponse response = new EmployeesResponse(unregisteredEmployees,
@@ -123,19 +526,73 @@ public class EmployeeController {
         }
     }
 
+    /**
+     * Same as /batch/register, except that the employees are saved in chunks, concurrently and each in its own
+     * transaction. The result lists every chunk with its range of the request body and whether it was saved, so
+     * that only the employees of failed chunks need to be sent again.
+     */
+    @PostMapping(
+            value = "/batch/register/parallel",
+            consumes = {MediaType.APPLICATION_JSON_VALUE},
+            produces = {MediaType.APPLICATION_JSON_VALUE}
+    )
+    public ResponseEntity<BatchSaveResultResponse> parallelBatchRegisterEmployees(@RequestBody Employee[] employees) {
+        BatchSaveResult result;
+        try {
+            result = service.parallelBatchSaveEmployee(employees);
+        } catch (InvalidEmployeeAgeException ieae) {
+            BatchSaveResultResponse response = new BatchSaveResultResponse(null, EmployeeResponseMessage.INVALID_AGE);
+            return ResponseEntity.badRequest().body(response);
+        }
+
+        if (result.failedCount() > 0) {
+            BatchSaveResultResponse response = new BatchSaveResultResponse(result,
+                    EmployeeResponseMessage.BATCH_SAVE_PARTIAL_ERROR);
+            return ResponseEntity.internalServerError().body(response);
+        }
+
+        BatchSaveResultResponse response = new BatchSaveResultResponse(result,
+                EmployeeResponseMessage.BATCH_SAVE_SUCCESS);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Unlike /batch/register, the body is not deserialized up front. Taking the raw InputStream as an argument
+     * lets the service read one NDJSON line at a time, optionally through gzip when Content-Encoding is gzip.
+     */
+    @PostMapping(
+            value = "/stream/register",
+            consumes = {MediaType.APPLICATION_NDJSON_VALUE},
+            produces = {MediaType.APPLICATION_JSON_VALUE}
+    )
+    public ResponseEntity<IngestionSummaryResponse> streamRegisterEmployees(
+            @RequestHeader(value = HttpHeaders.CONTENT_ENCODING, required = false) String contentEncoding,
+            InputStream body) {
+        try {
+            IngestionSummary summary = ingestionService.ingest(body, "gzip".equalsIgnoreCase(contentEncoding));
+            IngestionSummaryResponse response = new IngestionSummaryResponse(summary,
+                    EmployeeResponseMessage.STREAM_SAVE_SUCCESS);
+            return ResponseEntity.ok(response);
+        } catch (EmployeeIngestionException eie) {
+            IngestionSummaryResponse response = new IngestionSummaryResponse(eie.getSummary(),
+                    EmployeeResponseMessage.STREAM_SAVE_ABORTED);
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+
     @PutMapping(
             value="/addEligibilityAfter/{age}",
             produces = {MediaType.APPLICATION_JSON_VALUE}
     )
     public ResponseEntity<EligibilityAfterResponse> addEligibilityAfterAge(@PathVariable Integer age) {
         try {
-            service.addEligibilityAfterAge(age);
-            EligibilityAfterResponse response = new EligibilityAfterResponse(age, true,
+            long updatedCount = service.addEligibilityAfterAge(age);
+            EligibilityAfterResponse response = new EligibilityAfterResponse(age, true, updatedCount,
                     EmployeeResponseMessage.SET_ELIGIBILITY_AFTER_SUCCESS);
             return ResponseEntity.ok(response);
         } catch (DataAccessException dae) {
             dae.printStackTrace();
-            EligibilityAfterResponse response = new EligibilityAfterResponse(age, true,
+            EligibilityAfterResponse response = new EligibilityAfterResponse(age, true, -1,
                     EmployeeResponseMessage.SET_ELIGIBILITY_AFTER_ERROR);
             return ResponseEntity.internalServerError().body(response);
         }
@@ -147,17 +604,65 @@ public class EmployeeController {
     )
     public ResponseEntity<EligibilityAfterResponse> batchAddEligibilityAfterAge(@PathVariable Integer age) {
         try {
-            service.batchAddEligibilityAfterAge(age);
-            EligibilityAfterResponse response = new EligibilityAfterResponse(age, true,
+            long updatedCount = service.batchAddEligibilityAfterAge(age);
+            EligibilityAfterResponse response = new EligibilityAfterResponse(age, true, updatedCount,
                     EmployeeResponseMessage.SET_ELIGIBILITY_AFTER_SUCCESS);
             return ResponseEntity.ok(response);
         } catch (DataAccessException dae) {
             dae.printStackTrace();
-            EligibilityAfterResponse response = new EligibilityAfterResponse(age, true,
+            EligibilityAfterResponse response = new EligibilityAfterResponse(age, true, -1,
                     EmployeeResponseMessage.SET_ELIGIBILITY_AFTER_ERROR);
             return ResponseEntity.internalServerError().body(response);
         }
     }
-}
 
+    /**
+     * Unlike the PUTs above, this returns as soon as the job is queued. The Location header points to the job,
+     * which can be polled for its progress. The response also tells how many employees the job is expected to
+     * update, counted from the in-memory AgeIndex before the job starts.
+     */
+    @PostMapping(
+            value = "/jobs/addEligibilityAfter/{age}",
+            produces = {MediaType.APPLICATION_JSON_VALUE}
+    )
+    public ResponseEntity<EligibilityJobResponse> submitEligibilityJob(@PathVariable Integer age) {
+        try {
+            long expectedCount = service.countToBeGrantedEligibility(age);
+            EligibilityJob job = jobService.submit(age);
+            EligibilityJobResponse response = new EligibilityJobResponse(job, expectedCount,
+                    EmployeeResponseMessage.SUBMIT_JOB_SUCCESS);
+            return ResponseEntity.accepted().location(URI.create("/employee/jobs/" + job.getId())).body(response);
+        } catch (TaskRejectedException tre) {
+            EligibilityJobResponse response = new EligibilityJobResponse(null,
+                    EmployeeResponseMessage.SUBMIT_JOB_REJECTED);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+        } catch (DataAccessException dae) {
+            EligibilityJobResponse response = new EligibilityJobResponse(null,
+                    EmployeeResponseMessage.SUBMIT_JOB_ERROR);
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+
+    @GetMapping(
+            value = "/jobs/{id}",
+            produces = {MediaType.APPLICATION_JSON_VALUE}
+    )
+    public ResponseEntity<EligibilityJobResponse> getEligibilityJob(@PathVariable Long id) {
+        try {
+            Optional<EligibilityJob> job = jobService.getJob(id);
+            if (job.isEmpty()) {
+                EligibilityJobResponse response = new EligibilityJobResponse(null,
+                        EmployeeResponseMessage.JOB_NOT_FOUND);
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+            }
 
+            EligibilityJobResponse response = new EligibilityJobResponse(job.get(),
+                    EmployeeResponseMessage.GET_JOB_SUCCESS);
+            return ResponseEntity.ok(response);
+        } catch (DataAccessException dae) {
+            EligibilityJobResponse response = new EligibilityJobResponse(null,
+                    EmployeeResponseMessage.GET_JOB_ERROR);
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.demo.controller.response;
+
+public class AgePercentileResponse {
+    private final Boolean eligibility;
+    private final double percentile;
+    private final int age;
+    private final String msg;
+
+    public AgePercentileResponse(Boolean eligibility, double percentile, int age, String msg) {
+        this.eligibility = eligibility;
+        this.percentile = percentile;
+        this.age = age;
+        this.msg = msg;
+    }
+
+    public Boolean getEligibility() {
+        return eligibility;
+    }
+
+    public double getPercentile() {
+        return percentile;
+    }
+
+    public int getAge() {
+        return age;
+    }
+
+    public String getMsg() {
+        return msg;
+    }
+}
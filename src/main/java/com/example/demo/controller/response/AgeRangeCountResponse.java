@@ -0,0 +1,37 @@
+package com.example.demo.controller.response;
+
+public class AgeRangeCountResponse {
+    private final Boolean eligibility;
+    private final int olderThan;
+    private final int upTo;
+    private final long count;
+    private final String msg;
+
+    public AgeRangeCountResponse(Boolean eligibility, int olderThan, int upTo, long count, String msg) {
+        this.eligibility = eligibility;
+        this.olderThan = olderThan;
+        this.upTo = upTo;
+        this.count = count;
+        this.msg = msg;
+    }
+
+    public Boolean getEligibility() {
+        return eligibility;
+    }
+
+    public int getOlderThan() {
+        return olderThan;
+    }
+
+    public int getUpTo() {
+        return upTo;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public String getMsg() {
+        return msg;
+    }
+}
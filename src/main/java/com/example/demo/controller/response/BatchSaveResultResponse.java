@@ -0,0 +1,21 @@
+package com.example.demo.controller.response;
+
+import com.example.demo.model.BatchSaveResult;
+
+public class BatchSaveResultResponse {
+    private final BatchSaveResult result;
+    private final String msg;
+
+    public BatchSaveResultResponse(BatchSaveResult result, String msg) {
+        this.result = result;
+        this.msg = msg;
+    }
+
+    public BatchSaveResult getResult() {
+        return result;
+    }
+
+    public String getMsg() {
+        return msg;
+    }
+}
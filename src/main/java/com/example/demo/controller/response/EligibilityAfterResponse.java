@@ -4,10 +4,12 @@ public class EligibilityAfterResponse {
     private final Integer afterAge;
     private final String msg;
     private final boolean eligibilitySet;
+    private final long updatedCount;
 
-    public EligibilityAfterResponse(Integer afterAge, boolean eligibilitySet, String msg) {
+    public EligibilityAfterResponse(Integer afterAge, boolean eligibilitySet, long updatedCount, String msg) {
         this.afterAge = afterAge;
         this.eligibilitySet = eligibilitySet;
+        this.updatedCount = updatedCount;
         this.msg = msg;
     }
 
@@ -22,4 +24,8 @@ public class EligibilityAfterResponse {
     public boolean getEligibilitySet() {
         return eligibilitySet;
     }
+
+    public long getUpdatedCount() {
+        return updatedCount;
+    }
 }
@@ -0,0 +1,34 @@
+package com.example.demo.controller.response;
+
+import com.example.demo.model.EligibilityJob;
+
+public class EligibilityJobResponse {
+    private final EligibilityJob job;
+    private final long expectedCount;
+    private final String msg;
+
+    public EligibilityJobResponse(EligibilityJob job, String msg) {
+        this(job, -1, msg);
+    }
+
+    public EligibilityJobResponse(EligibilityJob job, long expectedCount, String msg) {
+        this.job = job;
+        this.expectedCount = expectedCount;
+        this.msg = msg;
+    }
+
+    public EligibilityJob getJob() {
+        return job;
+    }
+
+    /**
+     * Number of employees the job is expected to update, as counted when it was submitted, or -1 if unknown
+     */
+    public long getExpectedCount() {
+        return expectedCount;
+    }
+
+    public String getMsg() {
+        return msg;
+    }
+}
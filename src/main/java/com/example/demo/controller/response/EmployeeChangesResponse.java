@@ -0,0 +1,21 @@
+package com.example.demo.controller.response;
+
+import com.example.demo.model.EmployeeChanges;
+
+public class EmployeeChangesResponse {
+    private final EmployeeChanges changes;
+    private final String msg;
+
+    public EmployeeChangesResponse(EmployeeChanges changes, String msg) {
+        this.changes = changes;
+        this.msg = msg;
+    }
+
+    public EmployeeChanges getChanges() {
+        return changes;
+    }
+
+    public String getMsg() {
+        return msg;
+    }
+}
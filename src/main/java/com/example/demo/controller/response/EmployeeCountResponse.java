@@ -0,0 +1,31 @@
+package com.example.demo.controller.response;
+
+public class EmployeeCountResponse {
+    private final Boolean eligibility;
+    private final Integer afterAge;
+    private final long count;
+    private final String msg;
+
+    public EmployeeCountResponse(Boolean eligibility, Integer afterAge, long count, String msg) {
+        this.eligibility = eligibility;
+        this.afterAge = afterAge;
+        this.count = count;
+        this.msg = msg;
+    }
+
+    public Boolean getEligibility() {
+        return eligibility;
+    }
+
+    public Integer getAfterAge() {
+        return afterAge;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public String getMsg() {
+        return msg;
+    }
+}
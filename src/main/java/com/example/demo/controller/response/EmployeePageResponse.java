@@ -0,0 +1,29 @@
+package com.example.demo.controller.response;
+
+import java.util.List;
+
+import com.example.demo.model.Employee;
+
+public class EmployeePageResponse {
+    private final List<Employee> employees;
+    private final String nextCursor;
+    private final String msg;
+
+    public EmployeePageResponse(List<Employee> employees, String nextCursor, String msg) {
+        this.employees = employees;
+        this.nextCursor = nextCursor;
+        this.msg = msg;
+    }
+
+    public List<Employee> getEmployees() {
+        return employees;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public String getMsg() {
+        return msg;
+    }
+}
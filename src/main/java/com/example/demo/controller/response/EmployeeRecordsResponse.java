@@ -0,0 +1,26 @@
+package com.example.demo.controller.response;
+
+import java.util.List;
+
+import com.example.demo.model.EmployeeRecord;
+
+/**
+ * Same JSON as EmployeesResponse, for employees read as EmployeeRecords.
+ */
+public class EmployeeRecordsResponse {
+    private final List<EmployeeRecord> employees;
+    private final String msg;
+
+    public EmployeeRecordsResponse(List<EmployeeRecord> employees, String msg) {
+        this.employees = employees;
+        this.msg = msg;
+    }
+
+    public List<EmployeeRecord> getEmployees() {
+        return employees;
+    }
+
+    public String getMsg() {
+        return msg;
+    }
+}
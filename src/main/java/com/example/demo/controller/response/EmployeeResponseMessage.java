@@ -3,16 +3,48 @@ package com.example.demo.controller.response;
 public class EmployeeResponseMessage {
     public static final String GET_ALL_SUCCESS = "Successfully retrieved all employees";
     public static final String GET_ALL_ERROR = "Fail to retrieve all employees";
+    public static final String INVALID_FIELDS = "Invalid fields provided";
+    public static final String GET_PAGE_SUCCESS = "Successfully retrieved page of employees";
+    public static final String GET_PAGE_ERROR = "Fail to retrieve page of employees";
+    public static final String GET_CHANGES_SUCCESS = "Successfully retrieved employee changes";
+    public static final String GET_CHANGES_ERROR = "Fail to retrieve employee changes";
+    public static final String INVALID_CHANGE_TOKEN = "Invalid change token provided";
+    public static final String FILTER_SUCCESS = "Successfully retrieved filtered employees";
+    public static final String FILTER_ERROR = "Fail to retrieve filtered employees";
+    public static final String INVALID_CURSOR = "Invalid cursor provided";
     public static final String SAVE_SUCCESS = "Successfully registered employee";
     public static final String SAVE_ERROR = "Fail to register employee";
     public static final String BATCH_SAVE_SUCCESS = "Successfully registered employees";
+    public static final String BATCH_SAVE_PARTIAL_ERROR = "Failed to save some chunks of employees";
     public static final String BATCH_SAVE_ERROR = "Fail to register employees";
     public static final String INVALID_AGE = "Invalid age provided";
+    public static final String STREAM_SAVE_SUCCESS = "Successfully ingested employees";
+    public static final String STREAM_SAVE_ABORTED = "Ingestion aborted, committed lines are kept";
     public static final String DISTINCT_FIRST_NAMES_SUCCESS = "Successfully retrieved distinct first names";
     public static final String DISTINCT_FIRST_NAMES_ERROR = "Fail to retrieve distinct first names";
+    public static final String MOST_COMMON_FIRST_NAMES_SUCCESS = "Successfully retrieved most common first names";
+    public static final String MOST_COMMON_FIRST_NAMES_ERROR = "Fail to retrieve most common first names";
     public static final String SET_ELIGIBILITY_AFTER_SUCCESS = "Successfully set eligibility after age";
     public static final String SET_ELIGIBILITY_AFTER_ERROR = "Failed to set eligibility after age";
 
     public static final String GET_ELIGIBLE_SUCCESS = "Successfully retrieved eligible count";
     public static final String GET_ELIGIBLE_ERROR = "Failed to retrieve eligible count";
+    public static final String GET_COUNT_SUCCESS = "Successfully retrieved employee count";
+    public static final String GET_COUNT_ERROR = "Failed to retrieve employee count";
+    public static final String GET_AGE_RANGE_COUNT_SUCCESS = "Successfully retrieved employee count in age range";
+    public static final String GET_AGE_RANGE_COUNT_ERROR = "Failed to retrieve employee count in age range";
+    public static final String GET_OLDER_THAN_SUCCESS = "Successfully retrieved employees older than age";
+    public static final String GET_OLDER_THAN_ERROR = "Failed to retrieve employees older than age";
+    public static final String GET_AGE_PERCENTILE_SUCCESS = "Successfully retrieved age at percentile";
+    public static final String GET_AGE_PERCENTILE_ERROR = "Failed to retrieve age at percentile";
+    public static final String GET_STATS_SUCCESS = "Successfully retrieved employee statistics";
+    public static final String GET_STATS_ERROR = "Failed to retrieve employee statistics";
+    public static final String INVALID_PERCENTILE = "Percentile must be greater than 0 and at most 100";
+
+    public static final String SUBMIT_JOB_SUCCESS = "Successfully submitted eligibility job";
+    public static final String SUBMIT_JOB_ERROR = "Failed to submit eligibility job";
+    public static final String SUBMIT_JOB_REJECTED = "Eligibility job queue is full, try again later";
+    public static final String GET_JOB_SUCCESS = "Successfully retrieved eligibility job";
+    public static final String GET_JOB_ERROR = "Failed to retrieve eligibility job";
+    public static final String JOB_NOT_FOUND = "Eligibility job not found";
 }
@@ -0,0 +1,21 @@
+package com.example.demo.controller.response;
+
+import com.example.demo.model.EmployeeStats;
+
+public class EmployeeStatsResponse {
+    private final EmployeeStats stats;
+    private final String msg;
+
+    public EmployeeStatsResponse(EmployeeStats stats, String msg) {
+        this.stats = stats;
+        this.msg = msg;
+    }
+
+    public EmployeeStats getStats() {
+        return stats;
+    }
+
+    public String getMsg() {
+        return msg;
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.demo.controller.response;
+
+import com.example.demo.model.FirstNameCount;
+
+import java.util.List;
+
+public class FirstNameCountsResponse {
+    private final List<FirstNameCount> names;
+    private final String msg;
+
+    public FirstNameCountsResponse(List<FirstNameCount> names, String msg) {
+        this.names = names;
+        this.msg = msg;
+    }
+
+    public List<FirstNameCount> getNames() {
+        return names;
+    }
+
+    public String getMsg() {
+        return msg;
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.demo.controller.response;
+
+import com.example.demo.model.IngestionSummary;
+
+public class IngestionSummaryResponse {
+    private final IngestionSummary summary;
+    private final String msg;
+
+    public IngestionSummaryResponse(IngestionSummary summary, String msg) {
+        this.summary = summary;
+        this.msg = msg;
+    }
+
+    public IngestionSummary getSummary() {
+        return summary;
+    }
+
+    public String getMsg() {
+        return msg;
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.demo.controller.response;
+
+import com.example.demo.model.ProjectedEmployees;
+
+public class ProjectedEmployeesResponse {
+    private final ProjectedEmployees employees;
+    private final String msg;
+
+    public ProjectedEmployeesResponse(ProjectedEmployees employees, String msg) {
+        this.employees = employees;
+        this.msg = msg;
+    }
+
+    public ProjectedEmployees getEmployees() {
+        return employees;
+    }
+
+    public String getMsg() {
+        return msg;
+    }
+}
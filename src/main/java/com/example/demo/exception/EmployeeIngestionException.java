@@ -0,0 +1,22 @@
+package com.example.demo.exception;
+
+import com.example.demo.model.IngestionSummary;
+
+/**
+ * Thrown when a streamed registration has to stop before the end of its input. Chunks committed before that
+ * remain committed, and are described by the summary.
+ */
+public class EmployeeIngestionException extends Exception {
+    private static final String template = "Ingestion aborted after line %d";
+
+    private final IngestionSummary summary;
+
+    public EmployeeIngestionException(IngestionSummary summary, Throwable cause) {
+        super(String.format(template, summary.getLastCommittedLine()), cause);
+        this.summary = summary;
+    }
+
+    public IngestionSummary getSummary() {
+        return summary;
+    }
+}
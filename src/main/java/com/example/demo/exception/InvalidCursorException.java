@@ -0,0 +1,9 @@
+package com.example.demo.exception;
+
+public class InvalidCursorException extends Exception {
+    private static final String template = "%s is not a valid cursor";
+
+    public InvalidCursorException(String cursor) {
+        super(String.format(template, cursor));
+    }
+}
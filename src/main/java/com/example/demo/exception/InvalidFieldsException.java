@@ -0,0 +1,9 @@
+package com.example.demo.exception;
+
+public class InvalidFieldsException extends Exception {
+    private static final String template = "%s is not a valid list of employee fields";
+
+    public InvalidFieldsException(String fields) {
+        super(String.format(template, fields));
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.demo.model;
+
+/**
+ * Number of employees of an eligibility and age.
+ */
+public record AgeCount(Boolean eligibility, Integer age, Long count) {
+}
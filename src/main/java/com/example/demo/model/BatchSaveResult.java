@@ -0,0 +1,24 @@
+package com.example.demo.model;
+
+import java.util.List;
+
+/**
+ * Result of a parallel batch save, per chunk of the input, so that a client can resend only the employees of the
+ * chunks that failed.
+ *
+ * @param savedCount number of employees saved
+ * @param failedCount number of employees in failed chunks
+ * @param chunks every chunk, in input order
+ */
+public record BatchSaveResult(int savedCount, int failedCount, List<Chunk> chunks) {
+
+    /**
+     * A chunk is saved or failed as a whole, as it is saved in a single transaction.
+     *
+     * @param fromIndex index in the input of the first employee of the chunk
+     * @param toIndex index in the input after the last employee of the chunk
+     * @param employees the saved employees, with their ids, or null if the chunk failed
+     * @param error the type of exception the chunk failed with, or null if it was saved
+     */
+    public record Chunk(int fromIndex, int toIndex, boolean saved, List<Employee> employees, String error) {}
+}
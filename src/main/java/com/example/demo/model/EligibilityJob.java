@@ -0,0 +1,233 @@
+package com.example.demo.model;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
+
+/**
+ * EligibilityJob tracks an asynchronous "add eligibility after age" run on the master db.
+ *
+ * The id range to process is fixed when the job starts, and checkpointId is the last id whose chunk has been
+ * committed. A job interrupted by a restart continues from checkpointId + 1 instead of starting over.
+ *
+ * A job is run by the node named by owner, which renews heartbeatAt on every checkpoint. Another node may only
+ * claim the job once that lease has expired (see EligibilityJobRepository.claim).
+ *
+ * @Version enables optimistic locking, so if two nodes ever pick up the same job, the checkpoint of one of them
+ * fails and its chunk is rolled back together with it. A claim bumps the version too, so the previous owner stops
+ * at its next checkpoint.
+ */
+@Entity
+@Table(name = "EligibilityJobs")
+public class EligibilityJob {
+
+    private static final int MAX_ERROR_LENGTH = 1024;
+
+    public enum Status {
+        PENDING, RUNNING, COMPLETED, FAILED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+    @Column(name = "after_age", nullable = false)
+    private Integer afterAge;
+    @Column(name = "chunk_size", nullable = false)
+    private int chunkSize;
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private Status status;
+    @Column(name = "min_id")
+    private Long minId;
+    @Column(name = "max_id")
+    private Long maxId;
+    @Column(name = "checkpoint_id")
+    private Long checkpointId;
+    @Column(name = "rows_processed", nullable = false)
+    private long rowsProcessed;
+    // Time spent processing chunks, which excludes any time the job spent waiting or interrupted
+    @Column(name = "elapsed_millis", nullable = false)
+    private long elapsedMillis;
+    @Column(name = "error")
+    private String error;
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+    @Column(name = "owner")
+    private String owner;
+    @Column(name = "heartbeat_at")
+    private Instant heartbeatAt;
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
+
+    public EligibilityJob() {}
+
+    /**
+     * @param owner node that submits the job, which owns it from the start
+     */
+    public EligibilityJob(Integer afterAge, int chunkSize, String owner) {
+        this.afterAge = afterAge;
+        this.chunkSize = chunkSize;
+        this.status = Status.PENDING;
+        this.createdAt = Instant.now();
+        this.updatedAt = this.createdAt;
+        this.owner = owner;
+        this.heartbeatAt = this.createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Integer getAfterAge() {
+        return afterAge;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public Long getMinId() {
+        return minId;
+    }
+
+    public Long getMaxId() {
+        return maxId;
+    }
+
+    public Long getCheckpointId() {
+        return checkpointId;
+    }
+
+    public long getRowsProcessed() {
+        return rowsProcessed;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public Instant getHeartbeatAt() {
+        return heartbeatAt;
+    }
+
+    public boolean isStarted() {
+        return status != Status.PENDING;
+    }
+
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED;
+    }
+
+    /**
+     * Fixes the id range to process. Employees registered after the job started are not part of it.
+     *
+     * @param idRange smallest and largest id to process, or null if there is nothing to process
+     */
+    public void start(long[] idRange) {
+        this.status = Status.RUNNING;
+        this.updatedAt = Instant.now();
+        this.heartbeatAt = this.updatedAt;
+        if (idRange == null) {
+            this.status = Status.COMPLETED;
+            return;
+        }
+
+        this.minId = idRange[0];
+        this.maxId = idRange[1];
+        this.checkpointId = idRange[0] - 1;
+    }
+
+    public long nextLowId() {
+        return checkpointId + 1;
+    }
+
+    public long nextHighId() {
+        return Math.min(maxId, nextLowId() + chunkSize - 1);
+    }
+
+    public void checkpoint(long highId, int rows, long chunkMillis) {
+        this.checkpointId = highId;
+        this.rowsProcessed += rows;
+        this.elapsedMillis += chunkMillis;
+        this.updatedAt = Instant.now();
+        this.heartbeatAt = this.updatedAt;
+        if (highId >= maxId) {
+            this.status = Status.COMPLETED;
+        }
+    }
+
+    public void fail(String error) {
+        this.status = Status.FAILED;
+        this.error = error != null && error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+        this.updatedAt = Instant.now();
+    }
+
+    /**
+     * @return fraction of the id range that has been processed, from 0 to 1
+     */
+    public double getProgress() {
+        if (status == Status.COMPLETED) {
+            return 1;
+        }
+        if (maxId == null) {
+            return 0;
+        }
+
+        return (double) (checkpointId - minId + 1) / (maxId - minId + 1);
+    }
+
+    public double getRowsPerSecond() {
+        return elapsedMillis == 0 ? 0 : rowsProcessed * 1000.0 / elapsedMillis;
+    }
+
+    /**
+     * Estimates the remaining time by assuming the rest of the id range is processed as fast as the part that is
+     * already done.
+     *
+     * @return estimated seconds to completion, or null if it cannot be estimated yet
+     */
+    public Double getEtaSeconds() {
+        if (isFinished()) {
+            return 0.0;
+        }
+
+        double progress = getProgress();
+        if (progress == 0) {
+            return null;
+        }
+
+        return elapsedMillis / 1000.0 * (1 - progress) / progress;
+    }
+}
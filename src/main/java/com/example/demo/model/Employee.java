@@ -2,20 +2,31 @@ package com.example.demo.model;
 
 import java.util.Objects;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 
 @Entity
 @Table(name = "Employees", indexes = @Index(name = "eligibilityAgeIndex", columnList = "eligibility, age ASC"))
 public class Employee {
 
+    /**
+     * GenerationType.IDENTITY only knows the id after the row is inserted, so Hibernate has to insert every new
+     * employee on its own and JDBC batching is silently disabled.
+     *
+     * With a sequence and an allocationSize above 1, Hibernate uses the pooled optimizer. Every call to the
+     * sequence reserves a block of allocationSize ids for this node, which it hands out from memory, so inserts can
+     * be batched. The INCREMENT BY of employee_id_seq must be equal to allocationSize.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "employeeIdGenerator")
+    @SequenceGenerator(name = "employeeIdGenerator", sequenceName = "employee_id_seq", allocationSize = 50)
     @Column(name = "id")
     private Long id;
     @Column(name = "first_name", nullable = false)
@@ -26,6 +37,14 @@ public class Employee {
     private Integer age;
     @Column(name = "eligibility", nullable = false, columnDefinition = "bit")
     private boolean eligibility;
+    /**
+     * Set by SQL Server on every insert and update, from a counter of the whole database. It is never written by
+     * Hibernate, and is only up to date on employees read from the master, as the slave holds a replicated copy.
+     * See EmployeeChangeLog.
+     */
+    @JsonIgnore
+    @Column(name = "row_version", insertable = false, updatable = false, columnDefinition = "rowversion")
+    private byte[] rowVersion;
 
     public Employee() {}
 
@@ -64,6 +83,10 @@ public class Employee {
         return eligibility;
     }
 
+    public byte[] getRowVersion() {
+        return rowVersion;
+    }
+
     public void setFirstName(String firstName) {
         this.firstName = firstName;
     }
@@ -0,0 +1,13 @@
+package com.example.demo.model;
+
+import java.util.List;
+
+/**
+ * Employees changed since a change token, as returned by /employee/changes.
+ *
+ * @param updated employees inserted or updated since the token, as they are now
+ * @param deleted ids of the employees deleted since the token (tombstones)
+ * @param nextToken token to ask for the changes after these ones
+ * @param hasMore true if there were more changes than the limit, which the next token continues from
+ */
+public record EmployeeChanges(List<EmployeeRecord> updated, List<Long> deleted, long nextToken, boolean hasMore) {}
@@ -0,0 +1,60 @@
+package com.example.demo.model;
+
+import com.example.demo.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * EmployeeCursor marks where a keyset-paginated listing stopped.
+ *
+ * When eligibility is null, the listing is ordered by id and the cursor is the last id seen. Otherwise the listing
+ * only contains employees with that eligibility, ordered by (age, id), which is the order of eligibilityAgeIndex.
+ *
+ * Clients only ever see the encoded form, so the format can change without breaking them.
+ */
+public record EmployeeCursor(Boolean eligibility, Integer age, long id) {
+
+    private static final String ID_PREFIX = "id";
+    private static final String AGE_PREFIX = "age";
+
+    public static EmployeeCursor first(Boolean eligibility) {
+        return eligibility == null
+                ? new EmployeeCursor(null, null, Long.MIN_VALUE)
+                : new EmployeeCursor(eligibility, Integer.MIN_VALUE, Long.MIN_VALUE);
+    }
+
+    public EmployeeCursor after(Employee last) {
+        return isAgeOrdered()
+                ? new EmployeeCursor(eligibility, last.getAge(), last.getId())
+                : new EmployeeCursor(null, null, last.getId());
+    }
+
+    public boolean isAgeOrdered() {
+        return eligibility != null;
+    }
+
+    public String encode() {
+        String raw = isAgeOrdered()
+                ? String.join(":", AGE_PREFIX, String.valueOf(eligibility), String.valueOf(age), String.valueOf(id))
+                : String.join(":", ID_PREFIX, String.valueOf(id));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static EmployeeCursor decode(String encoded) throws InvalidCursorException {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8).split(":");
+            if (parts.length == 2 && ID_PREFIX.equals(parts[0])) {
+                return new EmployeeCursor(null, null, Long.parseLong(parts[1]));
+            }
+            if (parts.length == 4 && AGE_PREFIX.equals(parts[0])) {
+                return new EmployeeCursor(Boolean.parseBoolean(parts[1]), Integer.parseInt(parts[2]),
+                        Long.parseLong(parts[3]));
+            }
+        } catch (IllegalArgumentException iae) {
+            // NumberFormatException and invalid base64 are both IllegalArgumentExceptions
+        }
+
+        throw new InvalidCursorException(encoded);
+    }
+}
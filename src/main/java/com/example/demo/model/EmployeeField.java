@@ -0,0 +1,95 @@
+package com.example.demo.model;
+
+import com.example.demo.exception.InvalidFieldsException;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * The fields of an employee that can be requested with fields=, by their JSON name, and the column each is read
+ * from.
+ */
+public enum EmployeeField {
+    ID("id", "id") {
+        @Override
+        public Object read(ResultSet rs, int column) throws SQLException {
+            return rs.getLong(column);
+        }
+    },
+    FIRST_NAME("firstName", "first_name") {
+        @Override
+        public Object read(ResultSet rs, int column) throws SQLException {
+            return rs.getString(column);
+        }
+    },
+    LAST_NAME("lastName", "last_name") {
+        @Override
+        public Object read(ResultSet rs, int column) throws SQLException {
+            return rs.getString(column);
+        }
+    },
+    AGE("age", "age") {
+        @Override
+        public Object read(ResultSet rs, int column) throws SQLException {
+            return rs.getInt(column);
+        }
+    },
+    ELIGIBILITY("eligibility", "eligibility") {
+        @Override
+        public Object read(ResultSet rs, int column) throws SQLException {
+            return rs.getBoolean(column);
+        }
+    };
+
+    private final String jsonName;
+    private final String column;
+
+    EmployeeField(String jsonName, String column) {
+        this.jsonName = jsonName;
+        this.column = column;
+    }
+
+    public String getJsonName() {
+        return jsonName;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    /**
+     * Reads the value of this field from the given column of the current row.
+     */
+    public abstract Object read(ResultSet rs, int column) throws SQLException;
+
+    /**
+     * @param fields comma-separated JSON names of fields, e.g. "id,eligibility"
+     * @throws InvalidFieldsException if a name is not a field, or no field is given
+     */
+    public static Set<EmployeeField> parse(String fields) throws InvalidFieldsException {
+        Set<EmployeeField> parsed = EnumSet.noneOf(EmployeeField.class);
+        for (String name : fields.split(",")) {
+            String trimmed = name.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            parsed.add(fromJsonName(trimmed, fields));
+        }
+
+        if (parsed.isEmpty()) {
+            throw new InvalidFieldsException(fields);
+        }
+        return parsed;
+    }
+
+    private static EmployeeField fromJsonName(String name, String fields) throws InvalidFieldsException {
+        for (EmployeeField field : values()) {
+            if (field.jsonName.equals(name)) {
+                return field;
+            }
+        }
+        throw new InvalidFieldsException(fields);
+    }
+}
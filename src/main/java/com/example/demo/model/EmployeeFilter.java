@@ -0,0 +1,37 @@
+package com.example.demo.model;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Combined filter over employees. Every given predicate must match, while a predicate with several prefixes
+ * matches names starting with any of them. Null or empty predicates match every employee.
+ *
+ * @param minAge lowest age included
+ * @param maxAge lowest age excluded
+ * @param firstNamePrefixes case-insensitive
+ * @param lastNamePrefixes case-insensitive
+ */
+public record EmployeeFilter(Boolean eligibility, Integer minAge, Integer maxAge,
+                             List<String> firstNamePrefixes, List<String> lastNamePrefixes) {
+
+    public boolean matches(Employee employee) {
+        return (eligibility == null || employee.isEligibility() == eligibility)
+                && (minAge == null || employee.getAge() >= minAge)
+                && (maxAge == null || employee.getAge() < maxAge)
+                && startsWithAny(employee.getFirstName(), firstNamePrefixes)
+                && startsWithAny(employee.getLastName(), lastNamePrefixes);
+    }
+
+    private static boolean startsWithAny(String name, List<String> prefixes) {
+        if (prefixes == null || prefixes.isEmpty()) {
+            return true;
+        }
+        if (name == null) {
+            return false;
+        }
+
+        String upperCaseName = name.toUpperCase(Locale.ROOT);
+        return prefixes.stream().anyMatch(prefix -> upperCaseName.startsWith(prefix.toUpperCase(Locale.ROOT)));
+    }
+}
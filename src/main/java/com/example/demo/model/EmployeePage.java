@@ -0,0 +1,8 @@
+package com.example.demo.model;
+
+import java.util.List;
+
+/**
+ * A page of a keyset-paginated listing. nextCursor is null when there are no more employees.
+ */
+public record EmployeePage(List<Employee> employees, String nextCursor) {}
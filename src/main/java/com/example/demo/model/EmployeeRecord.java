@@ -0,0 +1,10 @@
+package com.example.demo.model;
+
+/**
+ * Immutable, unmanaged view of an employee row, serialized to the same JSON as Employee.
+ *
+ * Unlike Employee, it is not an entity: it is mapped straight from a JDBC ResultSet, without a persistence
+ * context, proxies or a snapshot for dirty checking, which makes it cheaper for rows that are only read.
+ */
+public record EmployeeRecord(Long id, String firstName, String lastName, Integer age, boolean eligibility) {
+}
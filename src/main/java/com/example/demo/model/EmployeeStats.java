@@ -0,0 +1,25 @@
+package com.example.demo.model;
+
+import java.util.List;
+
+/**
+ * Aggregate statistics of all employees.
+ *
+ * @param ageHistogram consecutive buckets of bucketWidth years, from the bucket of the youngest employee to that
+ *                     of the oldest
+ */
+public record EmployeeStats(long eligibleCount, long ineligibleCount, int bucketWidth, List<AgeBucket> ageHistogram,
+                            AgeSummary eligible, AgeSummary ineligible) {
+
+    /**
+     * Number of employees of each eligibility with an age in [fromAge, toAge).
+     */
+    public record AgeBucket(int fromAge, int toAge, long eligibleCount, long ineligibleCount) {
+    }
+
+    /**
+     * Ages of the employees of an eligibility, all null if there are none.
+     */
+    public record AgeSummary(Integer minAge, Integer maxAge, Double meanAge) {
+    }
+}
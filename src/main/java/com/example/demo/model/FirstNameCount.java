@@ -0,0 +1,7 @@
+package com.example.demo.model;
+
+/**
+ * Number of employees with a first name.
+ */
+public record FirstNameCount(String firstName, Long count) {
+}
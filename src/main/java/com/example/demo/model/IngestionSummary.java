@@ -0,0 +1,55 @@
+package com.example.demo.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * IngestionSummary is the compact result of a streamed registration. Instead of echoing every employee, it only
+ * keeps counts and the line numbers of rejected lines, up to maxReportedRejections of them.
+ *
+ * lastCommittedLine is the last line whose chunk has been committed, so a client whose upload was aborted knows
+ * which line to resume from.
+ */
+public class IngestionSummary {
+    private final int maxReportedRejections;
+    private final List<Long> rejectedLines = new ArrayList<>();
+    private long acceptedCount;
+    private long rejectedCount;
+    private long lastCommittedLine;
+
+    public IngestionSummary(int maxReportedRejections) {
+        this.maxReportedRejections = maxReportedRejections;
+    }
+
+    public void accept(long count, long lastLine) {
+        this.acceptedCount += count;
+        this.lastCommittedLine = lastLine;
+    }
+
+    public void reject(long line) {
+        this.rejectedCount++;
+        if (rejectedLines.size() < maxReportedRejections) {
+            rejectedLines.add(line);
+        }
+    }
+
+    public long getAcceptedCount() {
+        return acceptedCount;
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    public List<Long> getRejectedLines() {
+        return rejectedLines;
+    }
+
+    public boolean isRejectedLinesTruncated() {
+        return rejectedCount > rejectedLines.size();
+    }
+
+    public long getLastCommittedLine() {
+        return lastCommittedLine;
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.demo.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Employees read with only some of their fields. Each row holds the values of the fields, in the same order.
+ *
+ * Serialized as a JSON array with an object per row holding only those fields, the same as an Employee with the
+ * other fields left out, without creating an object per row other than its array of values.
+ */
+@JsonSerialize(using = ProjectedEmployees.Serializer.class)
+public record ProjectedEmployees(List<EmployeeField> fields, List<Object[]> rows) {
+
+    static class Serializer extends JsonSerializer<ProjectedEmployees> {
+        @Override
+        public void serialize(ProjectedEmployees employees, JsonGenerator generator, SerializerProvider provider)
+                throws IOException {
+            List<EmployeeField> fields = employees.fields();
+            generator.writeStartArray();
+            for (Object[] row : employees.rows()) {
+                generator.writeStartObject();
+                for (int i = 0; i < row.length; i++) {
+                    generator.writeFieldName(fields.get(i).getJsonName());
+                    generator.writeObject(row[i]);
+                }
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+        }
+    }
+}
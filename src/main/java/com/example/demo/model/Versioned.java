@@ -0,0 +1,9 @@
+package com.example.demo.model;
+
+/**
+ * The result of a read, with the version of the data it was read from. The read is at least as new as the version,
+ * so the version can be served as its ETag: if the data has changed since, its version has too.
+ *
+ * @param version version of the data, or null if it is not known
+ */
+public record Versioned<T>(String version, T value) {}
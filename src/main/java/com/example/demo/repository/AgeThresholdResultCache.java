@@ -0,0 +1,125 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.EmployeeRecord;
+import com.example.demo.model.Versioned;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * AgeThresholdResultCache caches the results of findRecordsByEligibilityAndAgeAfterOrderByAgeAsc as parallel
+ * arrays of ids, ages and names in age order, rather than as a list of records. A hit is turned back into
+ * EmployeeRecords from the arrays, without reading the db.
+ *
+ * Only the lowest age threshold queried is kept per eligibility, as the result of any higher threshold is a slice
+ * of it: the employees after the first one older than that threshold. Results larger than max-rows are not cached.
+ *
+ * Each result is tagged with the version of the Employees table it was read at (see
+ * EmployeeDAO.findEmployeesVersion), and is only served while the table is still at that version. As the version
+ * is bumped by the db on every change, a write through any node makes the result stale on every node.
+ */
+@Component
+public class AgeThresholdResultCache {
+
+    private record Result(int afterAge, String version, long[] ids, int[] ages, String[] firstNames,
+                          String[] lastNames) {
+    }
+
+    private final boolean enabled;
+    private final int maxRows;
+    private final Map<Boolean, Result> results = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+
+    @Autowired
+    public AgeThresholdResultCache(@Value("${employee.result-cache.enabled}") boolean enabled,
+                                   @Value("${employee.result-cache.max-rows}") int maxRows,
+                                   MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.maxRows = maxRows;
+        this.hits = Counter.builder("employee.result-cache.hits")
+                .description("Age threshold queries answered from a cached result")
+                .register(meterRegistry);
+        this.misses = Counter.builder("employee.result-cache.misses")
+                .description("Age threshold queries that had to be run")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param version the current version of the Employees table
+     * @return the employees of that eligibility older than age in age order, or null if not cached at that version
+     */
+    public List<EmployeeRecord> get(boolean eligibility, int age, String version) {
+        Result result = results.get(eligibility);
+        if (result == null || version == null || !version.equals(result.version()) || age < result.afterAge()) {
+            misses.increment();
+            return null;
+        }
+
+        hits.increment();
+        int from = firstOlderThan(result.ages(), age);
+        List<EmployeeRecord> employees = new ArrayList<>(result.ids().length - from);
+        for (int i = from; i < result.ids().length; i++) {
+            employees.add(new EmployeeRecord(result.ids()[i], result.firstNames()[i], result.lastNames()[i],
+                    result.ages()[i], eligibility));
+        }
+        return employees;
+    }
+
+    /**
+     * @param employees the result of the query, in age order, with the table version read before it
+     */
+    public void put(boolean eligibility, int afterAge, Versioned<List<EmployeeRecord>> employees) {
+        List<EmployeeRecord> records = employees.value();
+        if (employees.version() == null || records.size() > maxRows) {
+            return;
+        }
+
+        Result current = results.get(eligibility);
+        if (current != null && current.version().equals(employees.version()) && current.afterAge() <= afterAge) {
+            // Already answered by slicing the current result
+            return;
+        }
+
+        long[] ids = new long[records.size()];
+        int[] ages = new int[records.size()];
+        String[] firstNames = new String[records.size()];
+        String[] lastNames = new String[records.size()];
+        for (int i = 0; i < records.size(); i++) {
+            EmployeeRecord record = records.get(i);
+            ids[i] = record.id();
+            ages[i] = record.age();
+            firstNames[i] = record.firstName();
+            lastNames[i] = record.lastName();
+        }
+        results.put(eligibility, new Result(afterAge, employees.version(), ids, ages, firstNames, lastNames));
+    }
+
+    /**
+     * @return index of the first age greater than age, or ages.length if there is none
+     */
+    private static int firstOlderThan(int[] ages, int age) {
+        int low = 0;
+        int high = ages.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (ages[mid] > age) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+}
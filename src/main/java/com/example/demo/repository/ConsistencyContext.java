@@ -0,0 +1,59 @@
+package com.example.demo.repository;
+
+/**
+ * ConsistencyContext holds the consistency token of the request being served on the current thread, so that a
+ * client always reads its own writes even though reads normally go to the slave.
+ *
+ * A consistency token is a heartbeat seq of ReplicationLagMonitor. Once the slave has replicated a heartbeat with
+ * that seq, it has also replicated every write made before the token was issued.
+ * - Writes made by EmployeeDAO during the request raise the token to one the slave has to reach.
+ * - Reads made by EmployeeDAO during the request go to the master until the slave has reached the token.
+ *
+ * The context is only active between begin and end, i.e. within a web request. Writes made on other threads,
+ * e.g. by eligibility jobs, do not issue tokens.
+ */
+public final class ConsistencyContext {
+
+    public static final String HEADER = "X-Consistency-Token";
+
+    public static final long NO_TOKEN = 0;
+
+    private static final ThreadLocal<long[]> TOKEN = new ThreadLocal<>();
+
+    private ConsistencyContext() {
+    }
+
+    /**
+     * @param token the token presented by the client, or NO_TOKEN
+     */
+    public static void begin(long token) {
+        TOKEN.set(new long[]{Math.max(token, NO_TOKEN)});
+    }
+
+    public static void end() {
+        TOKEN.remove();
+    }
+
+    public static boolean isActive() {
+        return TOKEN.get() != null;
+    }
+
+    /**
+     * @return the token the slave has to reach before it may serve reads of this request, or NO_TOKEN
+     */
+    public static long getToken() {
+        long[] token = TOKEN.get();
+        return token == null ? NO_TOKEN : token[0];
+    }
+
+    /**
+     * Raises the token of this request to the given token. Tokens never go backwards, so that a client which
+     * keeps presenting the latest token it was given reads all of its earlier writes too.
+     */
+    static void raiseTo(long token) {
+        long[] current = TOKEN.get();
+        if (current != null && token > current[0]) {
+            current[0] = token;
+        }
+    }
+}
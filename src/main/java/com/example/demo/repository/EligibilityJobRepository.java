@@ -0,0 +1,39 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.EligibilityJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Jobs are written and read on the master db only. Progress has to be visible as soon as a checkpoint is
+ * committed, so it should not be subject to replication delay.
+ */
+@Repository
+public interface EligibilityJobRepository extends JpaRepository<EligibilityJob, Long> {
+
+    List<EligibilityJob> findByStatusIn(Collection<EligibilityJob.Status> statuses);
+
+    /**
+     * Atomically makes owner the owner of the unfinished job, if no other node holds an unexpired lease on it.
+     * The version is bumped, so that a previous owner still holding the job fails its next checkpoint.
+     *
+     * @param expiredBefore leases renewed before this have expired
+     * @return 1 if the job was claimed, 0 otherwise
+     */
+    @Query("UPDATE EligibilityJob j SET j.owner = :owner, j.heartbeatAt = :now, j.version = j.version + 1 " +
+            "WHERE j.id = :id AND j.status IN :statuses " +
+            "AND (j.owner IS NULL OR j.owner = :owner OR j.heartbeatAt IS NULL OR j.heartbeatAt < :expiredBefore)")
+    @Modifying
+    @Transactional
+    int claim(@Param("id") Long id, @Param("owner") String owner, @Param("now") Instant now,
+              @Param("expiredBefore") Instant expiredBefore,
+              @Param("statuses") Collection<EligibilityJob.Status> statuses);
+}
@@ -0,0 +1,60 @@
+package com.example.demo.repository;
+
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
+
+/**
+ * EmployeeBulkEligibilityRepository is a custom repository fragment. Spring Data looks for a class named
+ * after the fragment interface with the "Impl" postfix (EmployeeBulkEligibilityRepositoryImpl) and routes calls
+ * of these methods on any repository extending this interface to that class.
+ *
+ * Fragments are useful when the behaviour cannot be expressed as a single derived or declared query, like
+ * running a set-based UPDATE over many id ranges.
+ */
+public interface EmployeeBulkEligibilityRepository {
+
+    /**
+     * Sets eligibility to true for every ineligible employee older than age, using the configured chunk size.
+     *
+     * Propagation.NOT_SUPPORTED suspends any transaction of the caller, so that each chunk is committed on its own
+     * instead of joining one huge transaction that holds every row lock until the end.
+     *
+     * @return number of rows updated
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    long addEligibilityAfterAge(Integer age);
+
+    /**
+     * Same as addEligibilityAfterAge(Integer) but with an explicit number of ids covered by each chunk.
+     *
+     * @return number of rows updated
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    long addEligibilityAfterAge(Integer age, int chunkSize);
+
+    /**
+     * @return the smallest and largest id of ineligible employees older than age, or null if there are none
+     */
+    long[] findIneligibleIdRange(Integer age);
+
+    /**
+     * Sets eligibility for ineligible employees older than age whose id is between lowId and highId (inclusive).
+     * Unlike the methods above, this joins the transaction of the caller, so that the update can be committed
+     * together with other changes, like a job checkpoint.
+     *
+     * @return number of rows updated
+     */
+    @Transactional
+    int addEligibilityAfterAgeInIdRange(Integer age, long lowId, long highId);
+
+    /**
+     * Same as addEligibilityAfterAgeInIdRange, but also tells the ages of the updated employees, so that
+     * in-memory aggregates by age can be updated without reading the employees again.
+     *
+     * @return number of rows updated per age, leaving out ages with none
+     */
+    @Transactional
+    Map<Integer, Integer> grantEligibilityAfterAgeInIdRange(Integer age, long lowId, long highId);
+}
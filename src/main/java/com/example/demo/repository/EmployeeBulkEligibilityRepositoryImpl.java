@@ -0,0 +1,131 @@
+package com.example.demo.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Implementation of the EmployeeBulkEligibilityRepository fragment for the master db.
+ *
+ * Instead of loading every ineligible employee and updating them one at a time, a single set-based UPDATE is run
+ * per id range. Each range is committed in its own transaction so that the number of row locks held at any time
+ * stays below the threshold (about 5000 locks) at which SQL Server escalates to a table lock.
+ */
+public class EmployeeBulkEligibilityRepositoryImpl implements EmployeeBulkEligibilityRepository {
+
+    private static final String ID_RANGE_QUERY = "SELECT MIN(e.id), MAX(e.id) FROM Employee e " +
+            "WHERE e.eligibility = false AND e.age > :age";
+
+    private static final String UPDATE_ID_RANGE_QUERY = "UPDATE Employee e SET e.eligibility = true " +
+            "WHERE e.eligibility = false AND e.age > :age AND e.id BETWEEN :lowId AND :highId";
+
+    /**
+     * Same update as UPDATE_ID_RANGE_QUERY in SQL, as JPQL has no OUTPUT clause. The ages are output INTO a table
+     * variable, as Employees has an update trigger, and counted there. NOCOUNT leaves the counts as the only result.
+     */
+    private static final String GRANT_ID_RANGE_SQL = "SET NOCOUNT ON; DECLARE @granted TABLE (age int); " +
+            "UPDATE Employees SET eligibility = 1 OUTPUT inserted.age INTO @granted " +
+            "WHERE eligibility = 0 AND age > ? AND id BETWEEN ? AND ?; " +
+            "SELECT age, COUNT(*) FROM @granted GROUP BY age";
+
+    /**
+     * Without a unitName, @PersistenceContext injects a shared EntityManager of the @Primary
+     * EntityManagerFactory, which is the master one.
+     */
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final TransactionTemplate chunkTransaction;
+    private final int defaultChunkSize;
+
+    @Autowired
+    public EmployeeBulkEligibilityRepositoryImpl(
+            @Qualifier("masterTransactionManager") PlatformTransactionManager transactionManager,
+            @Value("${employee.eligibility.chunk-size}") int defaultChunkSize) {
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.defaultChunkSize = defaultChunkSize;
+    }
+
+    @Override
+    public long addEligibilityAfterAge(Integer age) {
+        return addEligibilityAfterAge(age, defaultChunkSize);
+    }
+
+    @Override
+    public long addEligibilityAfterAge(Integer age, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive");
+        }
+
+        long[] idRange = findIneligibleIdRange(age);
+        if (idRange == null) {
+            return 0;
+        }
+
+        long updated = 0;
+        for (long nextLowId = idRange[0]; nextLowId <= idRange[1]; nextLowId += chunkSize) {
+            long lowId = nextLowId;
+            long highId = Math.min(idRange[1], lowId + chunkSize - 1);
+            Integer chunkUpdated = chunkTransaction.execute(
+                    status -> addEligibilityAfterAgeInIdRange(age, lowId, highId));
+            updated += chunkUpdated == null ? 0 : chunkUpdated;
+        }
+
+        return updated;
+    }
+
+    @Override
+    public long[] findIneligibleIdRange(Integer age) {
+        Object[] bounds = entityManager.createQuery(ID_RANGE_QUERY, Object[].class)
+                .setParameter("age", age)
+                .getSingleResult();
+        if (bounds[0] == null) {
+            return null;
+        }
+
+        return new long[]{(Long) bounds[0], (Long) bounds[1]};
+    }
+
+    @Override
+    public int addEligibilityAfterAgeInIdRange(Integer age, long lowId, long highId) {
+        return entityManager.createQuery(UPDATE_ID_RANGE_QUERY)
+                .setParameter("age", age)
+                .setParameter("lowId", lowId)
+                .setParameter("highId", highId)
+                .executeUpdate();
+    }
+
+    /**
+     * Runs on the JDBC connection of the current transaction, as the ages are returned as a result set of the
+     * update itself.
+     */
+    @Override
+    public Map<Integer, Integer> grantEligibilityAfterAgeInIdRange(Integer age, long lowId, long highId) {
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            Map<Integer, Integer> grantedByAge = new HashMap<>();
+            try (PreparedStatement statement = connection.prepareStatement(GRANT_ID_RANGE_SQL)) {
+                statement.setInt(1, age);
+                statement.setLong(2, lowId);
+                statement.setLong(3, highId);
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        grantedByAge.put(rs.getInt(1), rs.getInt(2));
+                    }
+                }
+            }
+            return grantedByAge;
+        });
+    }
+}
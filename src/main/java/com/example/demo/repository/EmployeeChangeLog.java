@@ -0,0 +1,85 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.EmployeeChanges;
+import com.example.demo.model.EmployeeRecord;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * EmployeeChangeLog lists the employees changed since a change token, so that clients mirroring the Employees
+ * table only transfer what changed instead of the whole table.
+ *
+ * Every insert and update of an employee sets its row_version, a SQL Server rowversion taken from a counter of the
+ * whole database, and every delete leaves a tombstone in EmployeeTombstones with a rowversion of its own (see
+ * SETUP_MASTER_DB.sql). A change token is the rowversion, as a bigint, up to which a client has seen every change.
+ *
+ * Rowversions are handed out when rows are written, not when their transaction commits, so a transaction may still
+ * commit a lower rowversion than one that is already visible. Changes are therefore only listed below
+ * MIN_ACTIVE_ROWVERSION(), the lowest rowversion of any open transaction, which is why they are read from the
+ * master: the slave could have replicated a later transaction without an earlier one.
+ */
+@Component
+public class EmployeeChangeLog {
+
+    private static final String MIN_ACTIVE_ROW_VERSION_QUERY = "SELECT CAST(MIN_ACTIVE_ROWVERSION() AS bigint)";
+    // Parameters are cast to binary(8) rather than the column to bigint, so that the rowversion indexes are used
+    private static final String CHANGES_QUERY = "SELECT TOP (?) * FROM (" +
+            "SELECT " + EmployeeRecordMapper.RECORD_COLUMNS + ", CAST(row_version AS bigint) AS version, 0 AS deleted" +
+            " FROM Employees WHERE row_version > CAST(? AS binary(8)) AND row_version < CAST(? AS binary(8))" +
+            " UNION ALL" +
+            " SELECT id, NULL, NULL, NULL, NULL, CAST(row_version AS bigint), 1" +
+            " FROM EmployeeTombstones WHERE row_version > CAST(? AS binary(8)) AND row_version < CAST(? AS binary(8))" +
+            ") AS changes ORDER BY version ASC";
+
+    private final JdbcTemplate master;
+
+    @Autowired
+    public EmployeeChangeLog(@Qualifier("masterDataSource") DataSource masterDataSource) {
+        this(new JdbcTemplate(masterDataSource));
+    }
+
+    EmployeeChangeLog(JdbcTemplate master) {
+        this.master = master;
+    }
+
+    /**
+     * Lists at most limit changes after the token, oldest first. An employee is listed at most once, either as
+     * updated or as deleted, as a delete removes its row and an insert removes its tombstone.
+     *
+     * @param since change token, 0 for every employee and tombstone
+     */
+    public EmployeeChanges findChangesSince(long since, int limit) {
+        Long bound = master.queryForObject(MIN_ACTIVE_ROW_VERSION_QUERY, Long.class);
+        long upTo = bound == null ? since : bound;
+
+        List<EmployeeRecord> updated = new ArrayList<>();
+        List<Long> deleted = new ArrayList<>();
+        long[] lastVersion = {since};
+        boolean[] hasMore = {false};
+        // One extra change is read to know if there are more, without a separate count query
+        master.query(CHANGES_QUERY, (RowCallbackHandler) rs -> {
+            if (updated.size() + deleted.size() == limit) {
+                hasMore[0] = true;
+                return;
+            }
+
+            lastVersion[0] = rs.getLong(6);
+            if (rs.getBoolean(7)) {
+                deleted.add(rs.getLong(1));
+            } else {
+                updated.add(EmployeeRecordMapper.INSTANCE.mapRow(rs, rs.getRow()));
+            }
+        }, limit + 1, since, upTo, since, upTo);
+
+        // Without more changes, every change below the bound has been seen
+        long nextToken = hasMore[0] ? lastVersion[0] : Math.max(since, upTo - 1);
+        return new EmployeeChanges(updated, deleted, nextToken, hasMore[0]);
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.BatchSaveResult;
+import com.example.demo.model.Employee;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * EmployeeChunkedBatchSaver saves a large batch of employees as chunks of chunk-size employees, which are saved
+ * concurrently on the threads of batchSaveExecutor (see BatchSaveConfig). Every chunk is saved with
+ * EmployeeDAO.saveAll in its own transaction, on its own master connection, instead of the whole batch taking a
+ * single connection and a single core.
+ *
+ * Chunks succeed or fail independently. A failed chunk is rolled back and reported with its range of the input,
+ * while the other chunks stay committed, so the batch as a whole is not atomic.
+ *
+ * As in EmployeeGroupCommitter, the consistency token of every chunk is raised on the thread of the caller once
+ * the chunk is saved, so that the caller reads its own writes (see ConsistencyContext).
+ */
+@Component
+public class EmployeeChunkedBatchSaver {
+
+    private final EmployeeDAO repository;
+    private final TaskExecutor executor;
+    private final int chunkSize;
+
+    @Autowired
+    public EmployeeChunkedBatchSaver(EmployeeDAO repository,
+                                     @Qualifier("batchSaveExecutor") TaskExecutor executor,
+                                     @Value("${employee.batch-save.chunk-size}") int chunkSize) {
+        this.repository = repository;
+        this.executor = executor;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    public BatchSaveResult saveAll(List<Employee> employees) {
+        List<CompletableFuture<SavedChunk>> futures = new ArrayList<>();
+        for (int from = 0; from < employees.size(); from += chunkSize) {
+            List<Employee> chunk = employees.subList(from, Math.min(from + chunkSize, employees.size()));
+            try {
+                futures.add(CompletableFuture.supplyAsync(() -> saveChunk(chunk), executor));
+            } catch (TaskRejectedException tre) {
+                futures.add(CompletableFuture.failedFuture(tre));
+            }
+        }
+
+        List<BatchSaveResult.Chunk> chunks = new ArrayList<>(futures.size());
+        int savedCount = 0;
+        for (int i = 0; i < futures.size(); i++) {
+            int from = i * chunkSize;
+            int to = Math.min(from + chunkSize, employees.size());
+            try {
+                SavedChunk saved = futures.get(i).join();
+                ConsistencyContext.raiseTo(saved.token());
+                chunks.add(new BatchSaveResult.Chunk(from, to, true, saved.employees(), null));
+                savedCount += to - from;
+            } catch (CompletionException ce) {
+                chunks.add(new BatchSaveResult.Chunk(from, to, false, null,
+                        ce.getCause().getClass().getSimpleName()));
+            }
+        }
+
+        return new BatchSaveResult(savedCount, employees.size() - savedCount, chunks);
+    }
+
+    private SavedChunk saveChunk(List<Employee> chunk) {
+        // Only to collect the consistency token of the chunk, as the thread serves no request of its own
+        ConsistencyContext.begin(ConsistencyContext.NO_TOKEN);
+        try {
+            List<Employee> saved = repository.saveAll(chunk);
+            return new SavedChunk(saved, ConsistencyContext.getToken());
+        } finally {
+            ConsistencyContext.end();
+        }
+    }
+
+    private record SavedChunk(List<Employee> employees, long token) {}
+}
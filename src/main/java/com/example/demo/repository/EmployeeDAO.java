@@ -1,29 +1,105 @@
 package com.example.demo.repository;
 
-import java.util.Collection;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.stream.Stream;
 
 import com.example.demo.model.Employee;
-
+import com.example.demo.model.EmployeeFilter;
+import com.example.demo.model.EmployeeRecord;
+import com.example.demo.model.AgeCount;
+import com.example.demo.model.FirstNameCount;
+import com.example.demo.model.Versioned;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.PersistenceUnit;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.repository.query.FluentQuery;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * EmployeeDAO implements both the master & slave repositories to decide which of these databases to use
  * for each operation.
+ *
+ * Reads normally go to the slave. While ReplicationLagMonitor reports the slave as lagging, reads are sent to the
+ * master instead, but only up to a maximum number of concurrent master reads so that the master is not overloaded.
+ * Reads beyond that still go to the slave. Streamed reads always use the slave.
+ *
+ * Within a web request, writes issue a consistency token (see ConsistencyContext), and reads go to the master
+ * until the slave has caught up to the token of the request, so that a client always reads its own writes.
+ *
+ * Slow scans and aggregates on the slave, such as findAllRecords and countByEligibility, can be hedged (see
+ * HedgedReader).
+ *
+ * Every committed write is passed on to the registered EmployeeWriteListeners. To tell them what an update or a
+ * delete by id changed, the affected employees are first read from the master, but only if a listener needs
+ * them (see EmployeeWriteListener.needsBeforeImage).
+ *
+ * findById, getReferenceById and findAllById can be served from EmployeeNearCache, which every write invalidates.
+ * The cache is skipped while the request waits for the slave to reach its consistency token, and nothing is cached
+ * while the slave has not replicated the latest write that invalidated it.
+ *
+ * The find*Records methods are a lighter read path for rows that are only read: they run plain SQL through
+ * JdbcTemplate and map rows straight into immutable EmployeeRecords, instead of hydrating managed entities in a
+ * persistence context. They are routed between the master and the slave the same way as every other read.
+ *
+ * findAllRecords, findAllProjected and findRecordsByEligibilityAndAgeAfterOrderByAgeAsc also return the version of
+ * the table they read (see findEmployeesVersion), read on the same connection just before the rows.
+ *
+ * findRecordsByEligibilityAndAgeAfterOrderByAgeAsc can be answered from AgeThresholdResultCache, which only serves a
+ * result while the table is still at the version it was read at.
  */
 @Repository
 public class EmployeeDAO implements EmployeeMasterRepository, EmployeeSlaveRepository {
 
+    // Rows the driver fetches per round-trip on the record read path, the same as streamAll
+    private static final int RECORD_FETCH_SIZE = 500;
+    private static final String FIND_ALL_RECORDS = "SELECT " + EmployeeRecordMapper.RECORD_COLUMNS +
+            " FROM Employees";
+    private static final String FIND_DISTINCT_FIRST_NAME_RECORDS = "SELECT " + EmployeeRecordMapper.RECORD_COLUMNS +
+            " FROM (SELECT *, ROW_NUMBER() OVER (PARTITION BY first_name ORDER BY id) AS Row FROM Employees) AS a" +
+            " WHERE a.Row = 1";
+    private static final String FIND_RECORDS_BY_ELIGIBILITY_AND_AGE_AFTER = "SELECT " +
+            EmployeeRecordMapper.RECORD_COLUMNS + " FROM Employees WHERE eligibility = ? AND age > ? ORDER BY age, id";
+    private static final String EMPLOYEES_VERSION_QUERY = "SELECT version FROM EmployeesVersion WHERE id = 1";
+    private static final ResultSetExtractor<String> EMPLOYEES_VERSION_EXTRACTOR = rs ->
+            rs.next() ? "employees-" + rs.getLong(1) : null;
+    private static final RowMapper<Employee> EMPLOYEE_MAPPER = (rs, rowNum) -> new Employee(rs.getLong(1),
+            rs.getString(2), rs.getString(3), rs.getInt(4), rs.getBoolean(5));
+
     @PersistenceUnit(name = "masterEntityManagerFactory")
     private EntityManagerFactory masterEntityManagerFactory;
 
@@ -33,57 +109,545 @@ public class EmployeeDAO implements EmployeeMasterRepository, EmployeeSlaveRepos
 
     private EmployeeMasterRepository masterRepository;
     private EmployeeSlaveRepository slaveRepository;
+    // Shared EntityManager bound to the slave transaction, used to detach streamed employees
+    private EntityManager slaveEntityManager;
+    private TransactionTemplate slaveReadOnlyTransaction;
+    private ReplicationLagMonitor lagMonitor;
+    // Permits for reads sent to the master while the slave is lagging
+    private Semaphore masterReadPermits;
+    private Counter masterReads;
+    private HedgedReader hedgedReader;
+    private EmployeeNearCache nearCache;
+    private AgeThresholdResultCache resultCache;
+    private JdbcTemplate masterJdbc;
+    private JdbcTemplate slaveJdbc;
+    private final List<EmployeeWriteListener> writeListeners = new CopyOnWriteArrayList<>();
+    private volatile boolean beforeImagesNeeded;
 
     @Autowired
     public EmployeeDAO(EmployeeMasterRepository employeeMasterRepository,
-                       EmployeeSlaveRepository employeeSlaveRepository) {
+                       EmployeeSlaveRepository employeeSlaveRepository,
+                       @Qualifier("slaveEntityManagerFactory") EntityManagerFactory slaveEntityManagerFactory,
+                       @Qualifier("slaveTransactionManager") PlatformTransactionManager slaveTransactionManager,
+                       ReplicationLagMonitor lagMonitor,
+                       @Value("${employee.replication.max-concurrent-master-reads}") int maxConcurrentMasterReads,
+                       MeterRegistry meterRegistry,
+                       HedgedReader hedgedReader,
+                       EmployeeNearCache nearCache,
+                       AgeThresholdResultCache resultCache,
+                       @Qualifier("masterDataSource") DataSource masterDataSource,
+                       @Qualifier("slaveDataSource") DataSource slaveDataSource) {
         this.masterRepository = employeeMasterRepository;
         this.slaveRepository = employeeSlaveRepository;
+        this.slaveEntityManager = SharedEntityManagerCreator.createSharedEntityManager(slaveEntityManagerFactory);
+        this.slaveReadOnlyTransaction = new TransactionTemplate(slaveTransactionManager);
+        this.slaveReadOnlyTransaction.setReadOnly(true);
+        this.lagMonitor = lagMonitor;
+        this.masterReadPermits = new Semaphore(maxConcurrentMasterReads);
+        this.masterReads = Counter.builder("employee.reads.master")
+                .description("Reads sent to the master because the slave was lagging")
+                .register(meterRegistry);
+        this.hedgedReader = hedgedReader;
+        this.nearCache = nearCache;
+        addWriteListener(nearCache);
+        this.resultCache = resultCache;
+        this.masterJdbc = new JdbcTemplate(masterDataSource);
+        this.masterJdbc.setFetchSize(RECORD_FETCH_SIZE);
+        this.slaveJdbc = new JdbcTemplate(slaveDataSource);
+        this.slaveJdbc.setFetchSize(RECORD_FETCH_SIZE);
+    }
+
+    /**
+     * @return true if the slave has not caught up to the consistency token of the current request yet
+     */
+    private boolean awaitsReplication() {
+        long token = ConsistencyContext.getToken();
+        return token != ConsistencyContext.NO_TOKEN && !lagMonitor.isCaughtUpTo(token);
+    }
+
+    /**
+     * Runs the read against the master if the slave has not caught up to the consistency token of the request.
+     * Otherwise runs it against the slave, or against the master if the slave is lagging and a master read permit
+     * is available.
+     */
+    private <T> T read(Function<EmployeeReadRepository, T> query) {
+        return route(masterRepository, slaveRepository, query);
+    }
+
+    /**
+     * Same as read, for the JDBC record read path.
+     */
+    private <T> T readRecords(Function<JdbcTemplate, T> query) {
+        return route(masterJdbc, slaveJdbc, query);
+    }
+
+    private <R, T> T route(R master, R slave, Function<R, T> query) {
+        if (awaitsReplication()) {
+            // Not capped, as the slave cannot serve this read correctly
+            masterReads.increment();
+            return query.apply(master);
+        }
+
+        if (lagMonitor.isLagging() && masterReadPermits.tryAcquire()) {
+            try {
+                masterReads.increment();
+                return query.apply(master);
+            } finally {
+                masterReadPermits.release();
+            }
+        }
+
+        return query.apply(slave);
+    }
+
+    /**
+     * Same as read, except that reads sent to the slave are hedged by HedgedReader. Meant for reads whose latency
+     * varies with the state of the replica, such as scans and aggregates.
+     *
+     * @param name the kind of read, e.g. the name of the query
+     */
+    private <T> T hedgedRead(String name, Function<EmployeeReadRepository, T> query) {
+        return hedgedRoute(name, masterRepository, slaveRepository, query);
+    }
+
+    /**
+     * Same as hedgedRead, for the JDBC record read path.
+     */
+    private <T> T hedgedReadRecords(String name, Function<JdbcTemplate, T> query) {
+        return hedgedRoute(name, masterJdbc, slaveJdbc, query);
+    }
+
+    private <R, T> T hedgedRoute(String name, R master, R slave, Function<R, T> query) {
+        if (awaitsReplication() || lagMonitor.isLagging()) {
+            return route(master, slave, query);
+        }
+
+        return hedgedReader.read(name, () -> query.apply(slave), () -> query.apply(master));
+    }
+
+    /**
+     * Raises the consistency token of the current request, if any, so that its later reads see the write. The
+     * token is also passed to EmployeeNearCache before the listeners invalidate it, so that it does not cache what
+     * a slave that has not replicated the write yet returns.
+     *
+     * The token is only issued once the write has committed, like the write listeners are notified. Issued inside
+     * an outer transaction, it could be replicated before the write, and a later read routed to a slave that has
+     * reached the token but not the write.
+     */
+    private void recordWrite() {
+        if (!ConsistencyContext.isActive() && !nearCache.isEnabled()) {
+            return;
+        }
+
+        afterCommit(() -> {
+            try {
+                long token = lagMonitor.nextToken();
+                nearCache.awaitReplication(token);
+                ConsistencyContext.raiseTo(token);
+            } catch (DataAccessException dae) {
+                // The write has already committed, so it should not fail because no token could be issued. The
+                // near cache may then keep an employee read from the slave before the write until its ttl
+            }
+        });
+    }
+
+    /**
+     * Must be called before the read whose result would be cached, as the slave may catch up during the read.
+     *
+     * @return true if the slave has replicated every write that invalidated the near cache
+     */
+    private boolean nearCacheable() {
+        return lagMonitor.isCaughtUpTo(nearCache.getReplicationToken());
+    }
+
+    public void addWriteListener(EmployeeWriteListener listener) {
+        writeListeners.add(listener);
+        if (listener.needsBeforeImage()) {
+            beforeImagesNeeded = true;
+        }
+    }
+
+    /**
+     * Runs the notification once the current transaction commits, or right away if there is none. Nothing is
+     * run if the transaction rolls back.
+     */
+    private void afterCommit(Runnable notification) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            notification.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                notification.run();
+            }
+        });
+    }
+
+    /**
+     * @return copies of the existing employees with the given ids as they are in the master, by id. Nothing is
+     * read if no write listener needs before images.
+     */
+    private Map<Long, Employee> snapshot(Iterable<? extends Long> ids) {
+        if (!beforeImagesNeeded) {
+            return Collections.emptyMap();
+        }
+
+        List<Long> existingIds = nonNull(ids);
+        if (existingIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        Map<Long, Employee> employees = new HashMap<>();
+        for (Employee employee : masterRepository.findAllById(existingIds)) {
+            employees.put(employee.getId(), copy(employee));
+        }
+        return employees;
+    }
+
+    private static List<Long> nonNull(Iterable<? extends Long> ids) {
+        List<Long> nonNull = new ArrayList<>();
+        for (Long id : ids) {
+            if (id != null) {
+                nonNull.add(id);
+            }
+        }
+        return nonNull;
+    }
+
+    private static List<Long> idsOf(Iterable<? extends Employee> employees) {
+        List<Long> ids = new ArrayList<>();
+        for (Employee employee : employees) {
+            ids.add(employee.getId());
+        }
+        return ids;
+    }
+
+    private static Employee copy(Employee employee) {
+        return new Employee(employee.getId(), employee.getFirstName(), employee.getLastName(), employee.getAge(),
+                employee.isEligibility());
+    }
+
+    private void notifySaved(Map<Long, Employee> before, Iterable<? extends Employee> saved) {
+        if (writeListeners.isEmpty()) {
+            return;
+        }
+
+        afterCommit(() -> {
+            for (Employee employee : saved) {
+                Employee after = copy(employee);
+                Employee prior = before.get(after.getId());
+                writeListeners.forEach(listener -> {
+                    if (after.getId() != null) {
+                        listener.onChanged(after.getId());
+                    }
+                    listener.onSaved(prior, after);
+                });
+            }
+        });
+    }
+
+    private void notifyChanged(Long id) {
+        if (writeListeners.isEmpty()) {
+            return;
+        }
+
+        afterCommit(() -> writeListeners.forEach(listener -> listener.onChanged(id)));
+    }
+
+    private void notifyDeleted(List<Long> ids, Map<Long, Employee> before) {
+        if (writeListeners.isEmpty() || ids.isEmpty()) {
+            return;
+        }
+
+        afterCommit(() -> {
+            for (Long id : ids) {
+                Employee deleted = before.get(id);
+                writeListeners.forEach(listener -> {
+                    listener.onChanged(id);
+                    if (deleted != null) {
+                        listener.onDeleted(deleted);
+                    }
+                });
+            }
+        });
+    }
+
+    private void notifyEligibilityGranted(Integer afterAge, long lowId, long highId, long count,
+                                          Map<Integer, Integer> grantedByAge) {
+        if (writeListeners.isEmpty() || count == 0) {
+            return;
+        }
+
+        afterCommit(() -> writeListeners.forEach(
+                listener -> listener.onEligibilityGranted(afterAge, lowId, highId, count, grantedByAge)));
+    }
+
+    private void notifyCleared() {
+        afterCommit(() -> writeListeners.forEach(EmployeeWriteListener::onCleared));
     }
 
     @Override
     public <S extends Employee> S save(S entity) {
-        return masterRepository.save(entity);
+        Map<Long, Employee> before = snapshot(idsOf(List.of(entity)));
+        S saved = masterRepository.save(entity);
+        recordWrite();
+        notifySaved(before, List.of(saved));
+        return saved;
     }
 
     @Override
     public void delete(Employee entity) {
+        List<Long> ids = nonNull(idsOf(List.of(entity)));
+        Map<Long, Employee> before = snapshot(ids);
         masterRepository.delete(entity);
+        recordWrite();
+        notifyDeleted(ids, before);
     }
 
     @Override
     public void deleteAllById(Iterable<? extends Long> longs) {
+        List<Long> ids = nonNull(longs);
+        Map<Long, Employee> before = snapshot(ids);
         masterRepository.deleteAllById(longs);
+        recordWrite();
+        notifyDeleted(ids, before);
     }
 
     @Override
     public void deleteAll(Iterable<? extends Employee> entities) {
+        List<Long> ids = nonNull(idsOf(entities));
+        Map<Long, Employee> before = snapshot(ids);
         masterRepository.deleteAll(entities);
+        recordWrite();
+        notifyDeleted(ids, before);
     }
 
     @Override
     public void deleteAll() {
         masterRepository.deleteAll();
+        recordWrite();
+        notifyCleared();
     }
 
     @Override
     public void updateEmployeeEligibility(Long id, boolean eligibility) {
+        Map<Long, Employee> before = snapshot(List.of(id));
         masterRepository.updateEmployeeEligibility(id, eligibility);
+        recordWrite();
+
+        Employee prior = before.get(id);
+        if (prior != null) {
+            Employee after = copy(prior);
+            after.setEligibility(eligibility);
+            notifySaved(before, List.of(after));
+        } else {
+            notifyChanged(id);
+        }
     }
 
     @Override
-    public Collection<Employee> findDistinctFirstName() {
-        return slaveRepository.findDistinctFirstName();
+    public long addEligibilityAfterAge(Integer age) {
+        long updatedCount = masterRepository.addEligibilityAfterAge(age);
+        recordWrite();
+        notifyEligibilityGranted(age, Long.MIN_VALUE, Long.MAX_VALUE, updatedCount, null);
+        return updatedCount;
     }
 
     @Override
-    public Collection<Employee> findByEligibilityAndAgeAfterOrderByAgeAsc(boolean eligibility, Integer age) {
-        return slaveRepository.findByEligibilityAndAgeAfterOrderByAgeAsc(eligibility, age);
+    public long addEligibilityAfterAge(Integer age, int chunkSize) {
+        long updatedCount = masterRepository.addEligibilityAfterAge(age, chunkSize);
+        recordWrite();
+        notifyEligibilityGranted(age, Long.MIN_VALUE, Long.MAX_VALUE, updatedCount, null);
+        return updatedCount;
+    }
+
+    @Override
+    public long[] findIneligibleIdRange(Integer age) {
+        return masterRepository.findIneligibleIdRange(age);
+    }
+
+    /**
+     * Updated through grantEligibilityAfterAgeInIdRange, so that listeners are told the ages of the updated
+     * employees.
+     */
+    @Override
+    public int addEligibilityAfterAgeInIdRange(Integer age, long lowId, long highId) {
+        return (int) total(grantEligibilityAfterAgeInIdRange(age, lowId, highId));
+    }
+
+    @Override
+    public Map<Integer, Integer> grantEligibilityAfterAgeInIdRange(Integer age, long lowId, long highId) {
+        Map<Integer, Integer> grantedByAge = masterRepository.grantEligibilityAfterAgeInIdRange(age, lowId, highId);
+        recordWrite();
+        notifyEligibilityGranted(age, lowId, highId, total(grantedByAge), grantedByAge);
+        return grantedByAge;
+    }
+
+    private static long total(Map<Integer, Integer> countsByAge) {
+        long total = 0;
+        for (int count : countsByAge.values()) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * The version of the Employees table on the db the read is routed to: the single row of EmployeesVersion, which
+     * the triggers of Employees bump in the same transaction as every statement that changes employees, so it only
+     * ever increases and is the same on every node.
+     *
+     * @return the version, or null if the version row is missing
+     */
+    public String findEmployeesVersion() {
+        return readRecords(jdbc -> jdbc.query(EMPLOYEES_VERSION_QUERY, EMPLOYEES_VERSION_EXTRACTOR));
+    }
+
+    /**
+     * Same as hedgedReadRecords, but also reads the version of the table on the same connection before the query,
+     * so that the result is at least as new as its version whichever replica the connection is to.
+     */
+    private <T> Versioned<T> hedgedReadVersionedRecords(String name, Function<JdbcTemplate, T> query) {
+        return hedgedReadRecords(name, jdbc -> jdbc.execute((ConnectionCallback<Versioned<T>>) connection -> {
+            JdbcTemplate sameConnection = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+            sameConnection.setFetchSize(RECORD_FETCH_SIZE);
+            String version = sameConnection.query(EMPLOYEES_VERSION_QUERY, EMPLOYEES_VERSION_EXTRACTOR);
+            return new Versioned<>(version, query.apply(sameConnection));
+        }));
+    }
+
+    public Versioned<List<EmployeeRecord>> findAllRecords() {
+        return hedgedReadVersionedRecords("findAllRecords",
+                jdbc -> jdbc.query(FIND_ALL_RECORDS, EmployeeRecordMapper.INSTANCE));
+    }
+
+    /**
+     * @return every employee with only the fields of the projection, each as an array of their values, with the
+     * version of the table
+     */
+    public Versioned<List<Object[]>> findAllProjected(EmployeeProjection projection) {
+        return hedgedReadVersionedRecords("findAllProjected",
+                jdbc -> jdbc.query(projection.getFindAllQuery(), projection.getRowMapper()));
+    }
+
+    /**
+     * The filter is run in the db, so that only the first limit matching rows are read.
+     *
+     * @return at most limit employees matching the filter, in id order
+     */
+    public List<Employee> findByFilter(EmployeeFilter filter, int limit) {
+        StringBuilder sql = new StringBuilder("SELECT TOP (?) ").append(EmployeeRecordMapper.RECORD_COLUMNS)
+                .append(" FROM Employees WHERE 1 = 1");
+        List<Object> args = new ArrayList<>();
+        args.add(limit);
+        if (filter.eligibility() != null) {
+            sql.append(" AND eligibility = ?");
+            args.add(filter.eligibility());
+        }
+        if (filter.minAge() != null) {
+            sql.append(" AND age >= ?");
+            args.add(filter.minAge());
+        }
+        if (filter.maxAge() != null) {
+            sql.append(" AND age < ?");
+            args.add(filter.maxAge());
+        }
+        appendPrefixes(sql, args, "first_name", filter.firstNamePrefixes());
+        appendPrefixes(sql, args, "last_name", filter.lastNamePrefixes());
+        sql.append(" ORDER BY id");
+
+        return readRecords(jdbc -> jdbc.query(sql.toString(), EMPLOYEE_MAPPER, args.toArray()));
+    }
+
+    /**
+     * Names are upper-cased on both sides, to match case-insensitively whatever the collation, the same as
+     * EmployeeFilter.
+     */
+    private static void appendPrefixes(StringBuilder sql, List<Object> args, String column, List<String> prefixes) {
+        if (prefixes == null || prefixes.isEmpty()) {
+            return;
+        }
+
+        StringJoiner anyPrefix = new StringJoiner(" OR ", " AND (", ")");
+        for (String prefix : prefixes) {
+            anyPrefix.add("UPPER(" + column + ") LIKE ? ESCAPE '\\'");
+            String escaped = prefix.toUpperCase(Locale.ROOT)
+                    .replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_").replace("[", "\\[");
+            args.add(escaped + "%");
+        }
+        sql.append(anyPrefix);
+    }
+
+    /**
+     * @return the employee with the lowest id of each first name
+     */
+    public List<EmployeeRecord> findDistinctFirstNameRecords() {
+        return hedgedReadRecords("findDistinctFirstName",
+                jdbc -> jdbc.query(FIND_DISTINCT_FIRST_NAME_RECORDS, EmployeeRecordMapper.INSTANCE));
+    }
+
+    /**
+     * Ties on age are broken by id, which eligibilityAgeIndex already holds, so that the order is the same on every
+     * read.
+     *
+     * @return the employees of that eligibility older than age, in age order, with the version of the table
+     */
+    public Versioned<List<EmployeeRecord>> findRecordsByEligibilityAndAgeAfterOrderByAgeAsc(boolean eligibility,
+                                                                                           int age) {
+        if (!resultCache.isEnabled()) {
+            return queryRecordsByEligibilityAndAgeAfter(eligibility, age);
+        }
+
+        // Checking the version is a single-row read, much cheaper than sorting the matching rows again
+        String version = findEmployeesVersion();
+        List<EmployeeRecord> cached = resultCache.get(eligibility, age, version);
+        if (cached != null) {
+            return new Versioned<>(version, cached);
+        }
+
+        Versioned<List<EmployeeRecord>> found = queryRecordsByEligibilityAndAgeAfter(eligibility, age);
+        resultCache.put(eligibility, age, found);
+        return found;
+    }
+
+    private Versioned<List<EmployeeRecord>> queryRecordsByEligibilityAndAgeAfter(boolean eligibility, int age) {
+        return hedgedReadVersionedRecords("findRecordsByEligibilityAndAgeAfter",
+                jdbc -> jdbc.query(FIND_RECORDS_BY_ELIGIBILITY_AND_AGE_AFTER, EmployeeRecordMapper.INSTANCE,
+                        eligibility, age));
     }
 
     @Override
     public long countByEligibility(boolean eligibility) {
-        return slaveRepository.countByEligibility(eligibility);
+        return hedgedRead("countByEligibility", repository -> repository.countByEligibility(eligibility));
+    }
+
+    @Override
+    public long countByAgeGreaterThan(Integer age) {
+        return read(repository -> repository.countByAgeGreaterThan(age));
+    }
+
+    @Override
+    public long countByEligibilityAndAgeGreaterThan(boolean eligibility, Integer age) {
+        return read(repository -> repository.countByEligibilityAndAgeGreaterThan(eligibility, age));
+    }
+
+    @Override
+    public List<FirstNameCount> countByFirstName() {
+        return read(repository -> repository.countByFirstName());
+    }
+
+    public List<FirstNameCount> countByFirstNameInMaster() {
+        return masterRepository.countByFirstName();
+    }
+
+    @Override
+    public List<AgeCount> countByEligibilityAndAge() {
+        return read(repository -> repository.countByEligibilityAndAge());
+    }
+
+    public List<AgeCount> countByEligibilityAndAgeInMaster() {
+        return masterRepository.countByEligibilityAndAge();
     }
 
     @Override
@@ -93,39 +657,57 @@ public class EmployeeDAO implements EmployeeMasterRepository, EmployeeSlaveRepos
 
     @Override
     public <S extends Employee> S saveAndFlush(S entity) {
-        return masterRepository.saveAndFlush(entity);
+        Map<Long, Employee> before = snapshot(idsOf(List.of(entity)));
+        S saved = masterRepository.saveAndFlush(entity);
+        recordWrite();
+        notifySaved(before, List.of(saved));
+        return saved;
     }
 
     @Override
     public <S extends Employee> List<S> saveAllAndFlush(Iterable<S> entities) {
-        return masterRepository.saveAllAndFlush(entities);
+        Map<Long, Employee> before = snapshot(idsOf(entities));
+        List<S> saved = masterRepository.saveAllAndFlush(entities);
+        recordWrite();
+        notifySaved(before, saved);
+        return saved;
     }
 
     @Override
     public void deleteAllInBatch(Iterable<Employee> entities) {
+        List<Long> ids = nonNull(idsOf(entities));
+        Map<Long, Employee> before = snapshot(ids);
         masterRepository.deleteAllInBatch(entities);
+        recordWrite();
+        notifyDeleted(ids, before);
     }
 
     @Override
     public void deleteAllByIdInBatch(Iterable<Long> longs) {
+        List<Long> ids = nonNull(longs);
+        Map<Long, Employee> before = snapshot(ids);
         masterRepository.deleteAllByIdInBatch(longs);
+        recordWrite();
+        notifyDeleted(ids, before);
     }
 
     @Override
     public void deleteAllInBatch() {
         masterRepository.deleteAllInBatch();
+        recordWrite();
+        notifyCleared();
     }
 
     @Override
     @Deprecated
     public Employee getOne(Long aLong) {
-        return slaveRepository.getOne(aLong);
+        return read(repository -> repository.getOne(aLong));
     }
 
     @Override
     @Deprecated
     public Employee getById(Long aLong) {
-        return slaveRepository.getById(aLong);
+        return read(repository -> repository.getById(aLong));
     }
 
     /**
@@ -135,7 +717,14 @@ public class EmployeeDAO implements EmployeeMasterRepository, EmployeeSlaveRepos
      */
     @Override
     public Employee getReferenceById(Long aLong) {
-        return slaveRepository.getReferenceById(aLong);
+        if (nearCache.isEnabledFor("getReferenceById") && !awaitsReplication()) {
+            Employee cached = nearCache.get(aLong);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        return read(repository -> repository.getReferenceById(aLong));
     }
 
     public List<Employee> findAllInMaster() {
@@ -144,85 +733,167 @@ public class EmployeeDAO implements EmployeeMasterRepository, EmployeeSlaveRepos
 
     @Override
     public <S extends Employee> Optional<S> findOne(Example<S> example) {
-        return slaveRepository.findOne(example);
+        return read(repository -> repository.findOne(example));
     }
 
     @Override
     public <S extends Employee> List<S> findAll(Example<S> example) {
-        return slaveRepository.findAll(example);
+        return read(repository -> repository.findAll(example));
     }
 
     @Override
     public <S extends Employee> List<S> findAll(Example<S> example, Sort sort) {
-        return slaveRepository.findAll(example, sort);
+        return read(repository -> repository.findAll(example, sort));
     }
 
     @Override
     public <S extends Employee> Page<S> findAll(Example<S> example, Pageable pageable) {
-        return slaveRepository.findAll(example, pageable);
+        return read(repository -> repository.findAll(example, pageable));
     }
 
     @Override
     public <S extends Employee> long count(Example<S> example) {
-        return slaveRepository.count(example);
+        return read(repository -> repository.count(example));
     }
 
     @Override
     public <S extends Employee> boolean exists(Example<S> example) {
-        return slaveRepository.exists(example);
+        return read(repository -> repository.exists(example));
     }
 
     @Override
     public <S extends Employee, R> R findBy(Example<S> example, Function<FluentQuery.FetchableFluentQuery<S>, R> queryFunction) {
-        return slaveRepository.findBy(example, queryFunction);
+        return read(repository -> repository.findBy(example, queryFunction));
     }
 
     @Override
     public <S extends Employee> List<S> saveAll(Iterable<S> entities) {
-        return masterRepository.saveAll(entities);
+        Map<Long, Employee> before = snapshot(idsOf(entities));
+        List<S> saved = masterRepository.saveAll(entities);
+        recordWrite();
+        notifySaved(before, saved);
+        return saved;
     }
 
     public Optional<Employee> findByIdInMaster(Long aLong) {
         return masterRepository.findById(aLong);
     }
 
+    public long countByEligibilityInMaster(boolean eligibility) {
+        return masterRepository.countByEligibility(eligibility);
+    }
+
     @Override
     public Optional<Employee> findById(Long aLong) {
-        return slaveRepository.findById(aLong);
+        if (!nearCache.isEnabledFor("findById") || awaitsReplication()) {
+            return read(repository -> repository.findById(aLong));
+        }
+
+        Employee cached = nearCache.get(aLong);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        long stamp = nearCache.stamp(aLong);
+        boolean cacheable = nearCacheable();
+        Optional<Employee> found = read(repository -> repository.findById(aLong));
+        if (cacheable) {
+            found.ifPresent(employee -> nearCache.put(employee, stamp));
+        }
+        return found;
     }
 
     @Override
     public boolean existsById(Long aLong) {
-        return slaveRepository.existsById(aLong);
+        return read(repository -> repository.existsById(aLong));
     }
 
     @Override
     public List<Employee> findAll() {
-        return slaveRepository.findAll();
+        return read(repository -> repository.findAll());
+    }
+
+    @Override
+    public List<Employee> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable) {
+        return read(repository -> repository.findByIdGreaterThanOrderByIdAsc(id, pageable));
+    }
+
+    @Override
+    public List<Employee> findByEligibilityAfterAgeAndId(boolean eligibility, Integer age, Long id,
+                                                         Pageable pageable) {
+        return read(repository -> repository.findByEligibilityAfterAgeAndId(eligibility, age, id, pageable));
+    }
+
+    @Override
+    public Stream<Employee> streamAll() {
+        return slaveRepository.streamAll();
+    }
+
+    /**
+     * Passes every employee in the slave to the consumer one at a time, in id order.
+     *
+     * The stream is consumed inside a read-only slave transaction, and every employee is detached from the
+     * persistence context once the consumer is done with it. Otherwise the persistence context would keep a
+     * reference to every row read, and memory use would still grow with the size of the table.
+     */
+    public void forEachEmployee(Consumer<Employee> consumer) {
+        slaveReadOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<Employee> employees = slaveRepository.streamAll()) {
+                employees.forEach(employee -> {
+                    consumer.accept(employee);
+                    slaveEntityManager.detach(employee);
+                });
+            }
+        });
     }
 
     @Override
     public List<Employee> findAllById(Iterable<Long> longs) {
-        return slaveRepository.findAllById(longs);
+        if (!nearCache.isEnabledFor("findAllById") || awaitsReplication()) {
+            return read(repository -> repository.findAllById(longs));
+        }
+
+        Set<Long> ids = new LinkedHashSet<>();
+        longs.forEach(ids::add);
+        List<Employee> employees = nearCache.getAll(ids);
+        for (Employee employee : employees) {
+            ids.remove(employee.getId());
+        }
+        if (ids.isEmpty()) {
+            return employees;
+        }
+
+        long stamp = nearCache.stampAll();
+        boolean cacheable = nearCacheable();
+        List<Employee> found = read(repository -> repository.findAllById(ids));
+        if (cacheable) {
+            nearCache.putAll(found, stamp);
+        }
+        employees.addAll(found);
+        return employees;
     }
 
     @Override
     public long count() {
-        return slaveRepository.count();
+        return read(repository -> repository.count());
     }
 
     @Override
     public void deleteById(Long aLong) {
+        List<Long> ids = List.of(aLong);
+        Map<Long, Employee> before = snapshot(ids);
         masterRepository.deleteById(aLong);
+        recordWrite();
+        notifyDeleted(ids, before);
     }
 
     @Override
     public List<Employee> findAll(Sort sort) {
-        return slaveRepository.findAll(sort);
+        return read(repository -> repository.findAll(sort));
     }
 
     @Override
     public Page<Employee> findAll(Pageable pageable) {
-        return slaveRepository.findAll(pageable);
+        return read(repository -> repository.findAll(pageable));
     }
 }
@@ -0,0 +1,305 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.Employee;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * EmployeeGroupCommitter saves employees submitted by concurrent callers together, in one transaction per batch,
+ * so that a burst of single registrations costs one master connection, one round-trip per JDBC batch and one log
+ * flush per batch instead of one of each per employee.
+ *
+ * Callers add their employee to a lock-free queue and wait for it to be saved. A single flusher thread saves the
+ * queued employees with EmployeeDAO.saveAll once max-batch-size of them are queued, or linger-millis after the
+ * first of them was, whichever comes first. A caller therefore waits at most about linger-millis longer than with
+ * a save of its own, in exchange for far fewer transactions under load.
+ *
+ * A failed batch is rolled back as a whole, so its employees are then saved one by one, and only the callers whose
+ * own employee fails get an exception. Should a batch fail in any other way, all of its callers get the exception,
+ * and the flusher goes on with the next batch. The flusher issues the consistency token of each batch, which is
+ * then raised on the threads of its callers so that they still read their own writes (see ConsistencyContext).
+ *
+ * Callers wait at most timeout-millis, after which their save fails with a QueryTimeoutException. It may still be
+ * committed if it was already in a batch by then.
+ *
+ * The time callers wait and the size of the batches are exposed as the employee.group-commit.latency and
+ * employee.group-commit.batch-size histograms.
+ */
+@Component
+public class EmployeeGroupCommitter {
+
+    private final EmployeeDAO repository;
+    private final boolean enabled;
+    private final long lingerNanos;
+    private final int maxBatchSize;
+    private final long timeoutMillis;
+    private final Timer latency;
+    private final DistributionSummary batchSizes;
+
+    private final Queue<PendingSave> queue = new ConcurrentLinkedQueue<>();
+    // Number of queued saves, kept apart from the queue as ConcurrentLinkedQueue.size() is not constant-time
+    private final AtomicInteger pending = new AtomicInteger();
+    private Thread flusher;
+    private volatile boolean running;
+
+    @Autowired
+    public EmployeeGroupCommitter(EmployeeDAO repository,
+                                  @Value("${employee.group-commit.enabled}") boolean enabled,
+                                  @Value("${employee.group-commit.linger-millis}") long lingerMillis,
+                                  @Value("${employee.group-commit.max-batch-size}") int maxBatchSize,
+                                  @Value("${employee.group-commit.timeout-millis}") long timeoutMillis,
+                                  MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.enabled = enabled;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.timeoutMillis = timeoutMillis;
+        this.latency = Timer.builder("employee.group-commit.latency")
+                .description("Time from submitting an employee to group commit until it is saved")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("employee.group-commit.batch-size")
+                .description("Employees saved per group commit transaction")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+
+        running = true;
+        flusher = new Thread(this::flushUntilStopped, "employee-group-commit");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Saves every employee still queued before returning.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (flusher == null) {
+            return;
+        }
+
+        running = false;
+        LockSupport.unpark(flusher);
+        flusher.join();
+        try {
+            while (!queue.isEmpty()) {
+                flush();
+            }
+        } finally {
+            failQueued(new IllegalStateException("Group commit stopped before the employee was saved"));
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Saves the employee in the next batch, and waits until it is committed.
+     *
+     * @return the saved employee, with its generated id
+     */
+    public Employee save(Employee employee) {
+        if (!running) {
+            return repository.save(employee);
+        }
+
+        PendingSave save = new PendingSave(employee);
+        queue.add(save);
+        int queued = pending.incrementAndGet();
+        // Stopped since the check above, maybe after the queue was drained for the last time, so save it alone
+        // unless it has already been taken from the queue
+        if (!running && unqueue(save)) {
+            return repository.save(employee);
+        }
+        // The first employee starts the linger of the flusher, and a full batch ends it
+        if (queued == 1 || queued >= maxBatchSize) {
+            LockSupport.unpark(flusher);
+        }
+
+        Saved saved;
+        try {
+            saved = save.result.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException te) {
+            unqueue(save);
+            throw new QueryTimeoutException("Employee not saved by group commit within " + timeoutMillis + " ms", te);
+        } catch (InterruptedException ie) {
+            unqueue(save);
+            Thread.currentThread().interrupt();
+            throw new CompletionException(ie);
+        } catch (ExecutionException ee) {
+            throw ee.getCause() instanceof RuntimeException re ? re : new CompletionException(ee.getCause());
+        }
+        ConsistencyContext.raiseTo(saved.token());
+        return saved.employee();
+    }
+
+    /**
+     * Removes a save from the queue, so that it is not saved in a later batch.
+     *
+     * @return false if the save was already taken from the queue
+     */
+    private boolean unqueue(PendingSave save) {
+        if (!queue.remove(save)) {
+            return false;
+        }
+        pending.decrementAndGet();
+        return true;
+    }
+
+    /**
+     * Fails every queued save, e.g. once no flusher is left to save them.
+     */
+    private void failQueued(Throwable cause) {
+        PendingSave save;
+        while ((save = queue.poll()) != null) {
+            pending.decrementAndGet();
+            fail(save, cause);
+        }
+    }
+
+    private void flushUntilStopped() {
+        try {
+            while (running) {
+                if (pending.get() <= 0) {
+                    LockSupport.park(this);
+                    continue;
+                }
+
+                long deadline = System.nanoTime() + lingerNanos;
+                long remaining;
+                while (running && pending.get() < maxBatchSize && (remaining = deadline - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(this, remaining);
+                }
+                flush();
+            }
+        } catch (Error error) {
+            // Later callers save alone, and the callers already queued are failed, as no one is left to flush
+            running = false;
+            failQueued(error);
+            throw error;
+        }
+    }
+
+    /**
+     * Saves at most max-batch-size queued employees in one transaction.
+     */
+    private void flush() {
+        List<PendingSave> batch = new ArrayList<>(maxBatchSize);
+        PendingSave save;
+        while (batch.size() < maxBatchSize && (save = queue.poll()) != null) {
+            batch.add(save);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        pending.addAndGet(-batch.size());
+        batchSizes.record(batch.size());
+
+        // Only to collect the consistency token of the batch, as the flusher serves no request of its own
+        ConsistencyContext.begin(ConsistencyContext.NO_TOKEN);
+        try {
+            saveBatch(batch);
+        } catch (RuntimeException | Error e) {
+            // Fails the callers whose save has not completed yet, instead of leaving them waiting
+            batch.forEach(pendingSave -> fail(pendingSave, e));
+            if (e instanceof Error error) {
+                throw error;
+            }
+        } finally {
+            ConsistencyContext.end();
+        }
+    }
+
+    private void saveBatch(List<PendingSave> batch) {
+        List<Employee> employees = new ArrayList<>(batch.size());
+        for (PendingSave pendingSave : batch) {
+            employees.add(copy(pendingSave.employee));
+        }
+
+        List<Employee> saved;
+        try {
+            saved = repository.saveAll(employees);
+        } catch (RuntimeException re) {
+            // The whole batch was rolled back, so that one invalid employee does not fail the others
+            batch.forEach(this::saveAlone);
+            return;
+        }
+
+        long token = ConsistencyContext.getToken();
+        for (int i = 0; i < batch.size(); i++) {
+            complete(batch.get(i), new Saved(saved.get(i), token));
+        }
+    }
+
+    private void saveAlone(PendingSave save) {
+        try {
+            Employee saved = repository.save(copy(save.employee));
+            complete(save, new Saved(saved, ConsistencyContext.getToken()));
+        } catch (RuntimeException re) {
+            fail(save, re);
+        }
+    }
+
+    private void complete(PendingSave save, Saved saved) {
+        latency.record(System.nanoTime() - save.submittedAtNanos, TimeUnit.NANOSECONDS);
+        save.result.complete(saved);
+    }
+
+    /**
+     * Does nothing if the save has already completed.
+     */
+    private void fail(PendingSave save, Throwable cause) {
+        if (save.result.isDone()) {
+            return;
+        }
+        latency.record(System.nanoTime() - save.submittedAtNanos, TimeUnit.NANOSECONDS);
+        save.result.completeExceptionally(cause);
+    }
+
+    /**
+     * Batches are saved from copies, as a failed batch may already have set ids on the employees it was given.
+     */
+    private static Employee copy(Employee employee) {
+        return new Employee(employee.getId(), employee.getFirstName(), employee.getLastName(), employee.getAge(),
+                employee.isEligibility());
+    }
+
+    private record Saved(Employee employee, long token) {}
+
+    private static final class PendingSave {
+        private final Employee employee;
+        private final long submittedAtNanos = System.nanoTime();
+        private final CompletableFuture<Saved> result = new CompletableFuture<>();
+
+        PendingSave(Employee employee) {
+            this.employee = employee;
+        }
+    }
+}
@@ -1,7 +1,6 @@
 package com.example.demo.repository;
 
 import com.example.demo.model.Employee;
-import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
@@ -11,9 +10,11 @@ import java.sql.SQLException;
 
 /**
  * EmployeeMasterRepository will connect to the master db using the MasterDataSourceConfig.
+ * Bulk eligibility updates are provided by the EmployeeBulkEligibilityRepository fragment.
+ * The read queries of EmployeeReadRepository are only used here when the slave is lagging behind.
  */
 @Repository
-public interface EmployeeMasterRepository extends JpaRepository<Employee, Long> {
+public interface EmployeeMasterRepository extends EmployeeReadRepository, EmployeeBulkEligibilityRepository {
 
     /**
      * Spring Data repository query derivation mechanism supports implementation
@@ -0,0 +1,184 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.Employee;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * EmployeeNearCache keeps recently read employees in memory in front of the slave, for the EmployeeDAO methods
+ * named in employee.near-cache.methods.
+ *
+ * The cache is a Caffeine cache, bounded in size and by time since each entry was written. Caffeine evicts with
+ * W-TinyLFU: a new entry is only admitted over an existing one if it has been asked for more often recently, so a
+ * scan of one-off reads does not flush out the hot employees. Hits, misses and evictions are exposed as the
+ * cache.* metrics of the "employees" cache.
+ *
+ * Every write committed through EmployeeDAO invalidates the employees it touched before the write returns. To
+ * keep a read that started before a write from caching what it read after the write has invalidated it, puts are
+ * stamped: a read only caches its result if no invalidation has hit the same stripe of ids since it started.
+ *
+ * A read that starts after the invalidation can still be served by a slave that has not replicated the write
+ * yet. So EmployeeDAO tags each write with its consistency token before invalidating (see awaitReplication), and
+ * only caches what it reads once the slave had caught up to the latest such token when the read started.
+ */
+@Component
+public class EmployeeNearCache implements EmployeeWriteListener {
+
+    private static final int STRIPES = 64;
+
+    private final Cache<Long, Employee> cache;
+    private final Set<String> methods;
+    // Invalidations so far per stripe of ids, the last stripe counts invalidations of every id
+    private final AtomicLongArray invalidations = new AtomicLongArray(STRIPES + 1);
+    // Consistency token the slave has to reach before what is read from it may be cached again
+    private final AtomicLong replicationToken = new AtomicLong(ConsistencyContext.NO_TOKEN);
+
+    @Autowired
+    public EmployeeNearCache(@Value("${employee.near-cache.maximum-size}") long maximumSize,
+                             @Value("${employee.near-cache.ttl-millis}") long ttlMillis,
+                             @Value("${employee.near-cache.methods}") String[] methods,
+                             MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMillis))
+                .recordStats()
+                .build();
+        this.methods = new HashSet<>();
+        for (String method : methods) {
+            this.methods.add(method.trim());
+        }
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "employees");
+    }
+
+    /**
+     * @param method name of the EmployeeDAO method
+     */
+    public boolean isEnabledFor(String method) {
+        return methods.contains(method);
+    }
+
+    public boolean isEnabled() {
+        return !methods.isEmpty();
+    }
+
+    /**
+     * Must be called before the employees written are invalidated.
+     *
+     * @param token the consistency token of a committed write
+     */
+    public void awaitReplication(long token) {
+        replicationToken.accumulateAndGet(token, Math::max);
+    }
+
+    /**
+     * @return the consistency token the slave has to have caught up to when a read starts for it to be cached
+     */
+    public long getReplicationToken() {
+        return replicationToken.get();
+    }
+
+    /**
+     * @return a stamp to pass to put the result of a read that starts now
+     */
+    public long stamp(Long id) {
+        return invalidations.get(stripe(id)) + invalidations.get(STRIPES);
+    }
+
+    /**
+     * @return a stamp to pass to putAll the results of a read of several ids that starts now
+     */
+    public long stampAll() {
+        long stamp = 0;
+        for (int i = 0; i <= STRIPES; i++) {
+            stamp += invalidations.get(i);
+        }
+        return stamp;
+    }
+
+    /**
+     * @return a copy of the cached employee, or null if it is not cached
+     */
+    public Employee get(Long id) {
+        Employee cached = cache.getIfPresent(id);
+        return cached == null ? null : copy(cached);
+    }
+
+    /**
+     * @return copies of the cached employees among the ids
+     */
+    public List<Employee> getAll(Collection<Long> ids) {
+        Map<Long, Employee> cached = cache.getAllPresent(ids);
+        List<Employee> employees = new ArrayList<>(cached.size());
+        for (Employee employee : cached.values()) {
+            employees.add(copy(employee));
+        }
+        return employees;
+    }
+
+    public void put(Employee employee, long stamp) {
+        if (stamp(employee.getId()) == stamp) {
+            cache.put(employee.getId(), copy(employee));
+        }
+    }
+
+    public void putAll(Collection<Employee> employees, long stamp) {
+        if (stampAll() == stamp) {
+            for (Employee employee : employees) {
+                cache.put(employee.getId(), copy(employee));
+            }
+        }
+    }
+
+    public void invalidate(Long id) {
+        invalidations.incrementAndGet(stripe(id));
+        cache.invalidate(id);
+    }
+
+    public void invalidateAll() {
+        invalidations.incrementAndGet(STRIPES);
+        cache.invalidateAll();
+    }
+
+    @Override
+    public void onChanged(Long id) {
+        invalidate(id);
+    }
+
+    /**
+     * The updated employees are not known, so every employee is invalidated.
+     */
+    @Override
+    public void onEligibilityGranted(Integer afterAge, long lowId, long highId, long count,
+                                     Map<Integer, Integer> grantedByAge) {
+        invalidateAll();
+    }
+
+    @Override
+    public void onCleared() {
+        invalidateAll();
+    }
+
+    private static int stripe(Long id) {
+        return Math.floorMod(Long.hashCode(id), STRIPES);
+    }
+
+    private static Employee copy(Employee employee) {
+        return new Employee(employee.getId(), employee.getFirstName(), employee.getLastName(), employee.getAge(),
+                employee.isEligibility());
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.EmployeeField;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * EmployeeProjection is a query compiled for a set of EmployeeFields: SQL that selects only their columns, and a
+ * row mapper that reads them into an array of values.
+ *
+ * Projections are compiled once per set of fields and cached, there are at most 2^5 of them.
+ */
+public final class EmployeeProjection {
+
+    private static final Map<Set<EmployeeField>, EmployeeProjection> COMPILED = new ConcurrentHashMap<>();
+
+    private final List<EmployeeField> fields;
+    private final String findAllQuery;
+    private final RowMapper<Object[]> rowMapper;
+
+    private EmployeeProjection(Set<EmployeeField> fields) {
+        // EnumSets iterate in declaration order, so the fields of every projection come in the same order
+        this.fields = List.copyOf(fields);
+        this.findAllQuery = "SELECT " + this.fields.stream().map(EmployeeField::getColumn)
+                .collect(Collectors.joining(", ")) + " FROM Employees";
+
+        EmployeeField[] columns = this.fields.toArray(new EmployeeField[0]);
+        this.rowMapper = (rs, rowNum) -> {
+            Object[] row = new Object[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                row[i] = columns[i].read(rs, i + 1);
+            }
+            return row;
+        };
+    }
+
+    public static EmployeeProjection of(Set<EmployeeField> fields) {
+        return COMPILED.computeIfAbsent(EnumSet.copyOf(fields), EmployeeProjection::new);
+    }
+
+    public List<EmployeeField> getFields() {
+        return fields;
+    }
+
+    public String getFindAllQuery() {
+        return findAllQuery;
+    }
+
+    public RowMapper<Object[]> getRowMapper() {
+        return rowMapper;
+    }
+}
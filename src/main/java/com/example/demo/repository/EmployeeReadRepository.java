@@ -0,0 +1,61 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.Employee;
+import com.example.demo.model.AgeCount;
+import com.example.demo.model.FirstNameCount;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.NoRepositoryBean;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+/**
+ * EmployeeReadRepository holds the read queries shared by EmployeeSlaveRepository and EmployeeMasterRepository.
+ * Declaring them once here means each of them can be run against either db, which EmployeeDAO relies on to send
+ * reads to the master while the slave is lagging behind.
+ *
+ * @NoRepositoryBean tells Spring Data not to create a repository for this interface itself, as it is only meant
+ * to be extended.
+ */
+@NoRepositoryBean
+public interface EmployeeReadRepository extends JpaRepository<Employee, Long> {
+
+    long countByEligibility(boolean eligibility);
+
+    long countByAgeGreaterThan(Integer age);
+
+    long countByEligibilityAndAgeGreaterThan(boolean eligibility, Integer age);
+
+    /**
+     * The constructor expression makes the query return a FirstNameCount per first name, without loading any
+     * employees.
+     */
+    @Query("SELECT new com.example.demo.model.FirstNameCount(e.firstName, COUNT(e)) FROM Employee e " +
+            "GROUP BY e.firstName")
+    List<FirstNameCount> countByFirstName();
+
+    @Query("SELECT new com.example.demo.model.AgeCount(e.eligibility, e.age, COUNT(e)) FROM Employee e " +
+            "GROUP BY e.eligibility, e.age")
+    List<AgeCount> countByEligibilityAndAge();
+
+    /**
+     * Keyset (seek) pagination: instead of skipping the first n rows with OFFSET, which SQL Server has to read
+     * and throw away, each page starts right after the last row of the previous page. The Pageable is only
+     * used to limit the number of rows, so every page costs the same no matter how deep it is.
+     */
+    List<Employee> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    /**
+     * Same as findByIdGreaterThanOrderByIdAsc, but walks eligibilityAgeIndex in (age, id) order for a single
+     * eligibility value. "age >= :age" is kept as a separate predicate so SQL Server can seek on the index
+     * rather than scanning it.
+     */
+    @Query("SELECT e FROM Employee e WHERE e.eligibility = :eligibility AND e.age >= :age " +
+            "AND (e.age > :age OR e.id > :id) ORDER BY e.age ASC, e.id ASC")
+    List<Employee> findByEligibilityAfterAgeAndId(@Param("eligibility") boolean eligibility,
+                                                  @Param("age") Integer age,
+                                                  @Param("id") Long id,
+                                                  Pageable pageable);
+}
@@ -0,0 +1,24 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.EmployeeRecord;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps the columns of RECORD_COLUMNS, in that order, to an EmployeeRecord. Columns are read by index, so that no
+ * column name is looked up per row.
+ */
+public class EmployeeRecordMapper implements RowMapper<EmployeeRecord> {
+
+    public static final String RECORD_COLUMNS = "id, first_name, last_name, age, eligibility";
+
+    public static final EmployeeRecordMapper INSTANCE = new EmployeeRecordMapper();
+
+    @Override
+    public EmployeeRecord mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return new EmployeeRecord(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getInt(4),
+                rs.getBoolean(5));
+    }
+}
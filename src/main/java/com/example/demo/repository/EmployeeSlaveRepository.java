@@ -2,22 +2,26 @@ package com.example.demo.repository;
 
 import com.example.demo.config.ReadOnlyRepository;
 import com.example.demo.model.Employee;
-import org.springframework.data.jpa.repository.JpaRepository;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
-import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * @ReadOnlyRepository together with the SlaveDataSourceConfig will route all DB calls to the
  * slave data source.
  * This is achieved via the includeFilter including the annotation @ReadOnlyRepository in SlaveDataSourceConfig.
+ *
+ * The read queries themselves are declared in EmployeeReadRepository, so that the master can run them too.
  */
 @Repository
 @ReadOnlyRepository
-public interface EmployeeSlaveRepository extends JpaRepository<Employee, Long> {
+public interface EmployeeSlaveRepository extends EmployeeReadRepository {
 
     Optional<Employee> findById(Long id);
 
@@ -26,27 +30,16 @@ public interface EmployeeSlaveRepository extends JpaRepository<Employee, Long> {
     long count();
 
     /**
-     * Distinct is mentioned by JPA to be problematic, so it is always better
-     * to write a declared query when you need to use distinct.
+     * Returning a Stream makes Hibernate read rows from a JDBC ResultSet as the stream is consumed, instead of
+     * materializing every row into a List first. It must be consumed inside a transaction and closed afterwards.
      *
-     * For instance, "select distinct u from User u" yields different results from
-     * "select distinct u.lastname from User u" as the distinct keyword of the first query
-     * applies to the id field, which has no duplicates.
+     * The fetch size is how many rows the driver fetches from the db per round-trip. The read-only hint tells
+     * Hibernate not to keep a snapshot of each entity for dirty checking, as nothing read here is ever updated.
      */
-    // Collection<Employee> findDistinctByFirstName(String firstName);
-    @Query(value = "SELECT * FROM " +
-            "(SELECT *, ROW_NUMBER() OVER " +
-            "(PARTITION BY e.first_name ORDER BY e.id) AS Row FROM Employees e) AS a " +
-            "WHERE a.Row = 1",
-            nativeQuery = true
-    )
-    Collection<Employee> findDistinctFirstName();
-
-    /**
-     * Chain multiple query predicate keywords together.
-     * Just make sure that the parameters are ordered correctly.
-     */
-    Collection<Employee> findByEligibilityAndAgeAfterOrderByAgeAsc(boolean isEligible, Integer age);
-
-    long countByEligibility(boolean eligibility);
+    @Query("SELECT e FROM Employee e ORDER BY e.id")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Employee> streamAll();
 }
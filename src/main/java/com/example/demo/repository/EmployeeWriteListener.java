@@ -0,0 +1,64 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.Employee;
+
+import java.util.Map;
+
+/**
+ * EmployeeWriteListener is told by EmployeeDAO about every write made to employees on the master, e.g. to keep
+ * in-memory aggregates and caches up to date without going back to the db.
+ *
+ * Listeners are called once the write has committed, on the thread that made it, so they should be quick. The
+ * state before a write is read just before it is made, so concurrent writes to the same employee can be reported
+ * slightly out of order. Listeners that need to be exact should periodically reconcile against the db.
+ *
+ * Reading the state before a write costs a query on the master, so it is only read if a registered listener
+ * needs it. Listeners that only need to know which employees changed, e.g. caches, should use onChanged.
+ */
+public interface EmployeeWriteListener {
+
+    /**
+     * @return true if onSaved must be given the employee before the write, and onDeleted must be called
+     */
+    default boolean needsBeforeImage() {
+        return false;
+    }
+
+    /**
+     * The employee with the id was saved, updated or deleted. Called for every such write, before onSaved or
+     * onDeleted.
+     */
+    default void onChanged(Long id) {
+    }
+
+    /**
+     * @param before the employee before the write, or null if it was new or no listener needs before images
+     * @param after the employee as saved
+     */
+    default void onSaved(Employee before, Employee after) {
+    }
+
+    /**
+     * Only called if some listener needs before images.
+     *
+     * @param deleted the employee as it was before it was deleted
+     */
+    default void onDeleted(Employee deleted) {
+    }
+
+    /**
+     * Eligibility was set for count ineligible employees older than afterAge with ids from lowId to highId
+     * inclusive, without the employees being read.
+     *
+     * @param grantedByAge the number of them per age, or null if not known
+     */
+    default void onEligibilityGranted(Integer afterAge, long lowId, long highId, long count,
+                                      Map<Integer, Integer> grantedByAge) {
+    }
+
+    /**
+     * Every employee was deleted.
+     */
+    default void onCleared() {
+    }
+}
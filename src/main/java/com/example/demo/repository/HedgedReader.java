@@ -0,0 +1,193 @@
+package com.example.demo.repository;
+
+import com.example.demo.config.ReplicaSetDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * HedgedReader cuts the tail latency of slave reads by hedging them.
+ *
+ * A read is first sent to the slave. If it has not answered within the configured percentile of the recent
+ * latencies of that kind of read, the same read is also sent to another replica, or to the master if there is no
+ * other healthy replica. The first answer is used and the statement of the other attempt is cancelled. Statements
+ * on the master cannot be cancelled, so a hedge sent to the master always runs to completion.
+ *
+ * Hedges are limited by a budget that grows by the configured ratio with every read, so that they never add more
+ * than that fraction of extra reads.
+ */
+@Component
+public class HedgedReader {
+
+    // Recent latencies kept per kind of read, and how many are needed before reads are hedged
+    private static final int LATENCY_SAMPLES = 1024;
+    private static final int MIN_LATENCY_SAMPLES = 100;
+    // Largest number of hedges that can be saved up during quiet periods
+    private static final double MAX_BUDGET = 10;
+
+    private final ReplicaSetDataSource slave;
+    private final Executor executor;
+    private final boolean enabled;
+    private final double percentile;
+    private final double budgetRatio;
+    private final Map<String, LatencyTracker> latencies = new ConcurrentHashMap<>();
+    private final Counter hedges;
+    private final Counter hedgeWins;
+
+    private double budget;
+
+    @Autowired
+    public HedgedReader(ReplicaSetDataSource slave,
+                        @Qualifier("hedgedReadExecutor") Executor executor,
+                        @Value("${employee.hedging.enabled}") boolean enabled,
+                        @Value("${employee.hedging.percentile}") double percentile,
+                        @Value("${employee.hedging.budget-ratio}") double budgetRatio,
+                        MeterRegistry meterRegistry) {
+        this.slave = slave;
+        this.executor = executor;
+        this.enabled = enabled;
+        this.percentile = percentile;
+        this.budgetRatio = budgetRatio;
+        this.hedges = Counter.builder("employee.reads.hedged")
+                .description("Reads that were hedged because the first attempt was slow")
+                .register(meterRegistry);
+        this.hedgeWins = Counter.builder("employee.reads.hedged.won")
+                .description("Hedged reads that were answered by the hedge first")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param name the kind of read, whose latencies decide when it is hedged
+     * @param onSlave runs the read on the slave
+     * @param onMaster runs the read on the master
+     */
+    public <T> T read(String name, Supplier<T> onSlave, Supplier<T> onMaster) {
+        if (!enabled) {
+            return onSlave.get();
+        }
+
+        LatencyTracker tracker = latencies.computeIfAbsent(name,
+                key -> new LatencyTracker(LATENCY_SAMPLES, percentile, MIN_LATENCY_SAMPLES));
+        deposit();
+
+        ReplicaSetDataSource.Route firstRoute = new ReplicaSetDataSource.Route(null);
+        CompletableFuture<T> first;
+        try {
+            first = CompletableFuture.supplyAsync(() -> timed(tracker,
+                    () -> ReplicaSetDataSource.routed(firstRoute, onSlave)), executor);
+        } catch (RejectedExecutionException ree) {
+            return onSlave.get();
+        }
+
+        long delayNanos = tracker.getPercentileNanos();
+        if (delayNanos < 0) {
+            return join(first);
+        }
+
+        try {
+            return first.get(delayNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException te) {
+            // Slower than usual, so hedge it
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            firstRoute.cancel();
+            throw new CompletionException(ie);
+        } catch (ExecutionException ee) {
+            return join(first);
+        }
+
+        if (!withdraw()) {
+            return join(first);
+        }
+
+        boolean toReplica = slave.hasHealthyReplicaOtherThan(firstRoute.getChosen());
+        ReplicaSetDataSource.Route hedgeRoute = new ReplicaSetDataSource.Route(firstRoute.getChosen());
+        CompletableFuture<T> hedge;
+        try {
+            hedge = CompletableFuture.supplyAsync(() -> timed(tracker,
+                    () -> toReplica ? ReplicaSetDataSource.routed(hedgeRoute, onSlave) : onMaster.get()), executor);
+        } catch (RejectedExecutionException ree) {
+            return join(first);
+        }
+        hedges.increment();
+
+        T result = join(firstSuccessful(first, hedge));
+        if (!first.isDone() || first.isCompletedExceptionally()) {
+            hedgeWins.increment();
+            firstRoute.cancel();
+        } else {
+            hedgeRoute.cancel();
+        }
+        return result;
+    }
+
+    private synchronized void deposit() {
+        budget = Math.min(MAX_BUDGET, budget + budgetRatio);
+    }
+
+    private synchronized boolean withdraw() {
+        if (budget < 1) {
+            return false;
+        }
+        budget--;
+        return true;
+    }
+
+    private static <T> T timed(LatencyTracker tracker, Supplier<T> read) {
+        long start = System.nanoTime();
+        T result = read.get();
+        tracker.record(System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * @return a future of the first attempt to succeed, which only fails if both attempts fail
+     */
+    private static <T> CompletableFuture<T> firstSuccessful(CompletableFuture<T> a, CompletableFuture<T> b) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        BiConsumer<T, Throwable> complete = (value, failure) -> {
+            if (failure == null) {
+                result.complete(value);
+            } else if (failures.incrementAndGet() == 2) {
+                result.completeExceptionally(failure);
+            }
+        };
+        a.whenComplete(complete);
+        b.whenComplete(complete);
+        return result;
+    }
+
+    /**
+     * Waits for the read, and rethrows its exception as is if it failed, e.g. a DataAccessException.
+     */
+    private static <T> T join(CompletableFuture<T> read) {
+        try {
+            return read.join();
+        } catch (CompletionException ce) {
+            if (ce.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            if (ce.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw ce;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.demo.repository;
+
+import java.util.Arrays;
+
+/**
+ * LatencyTracker keeps the latencies of the most recent reads of one kind, and a percentile of them.
+ *
+ * The percentile is recomputed every so many samples rather than on every read, as it requires sorting the samples.
+ */
+public class LatencyTracker {
+
+    private final long[] samples;
+    private final double percentile;
+    private final int minSamples;
+    private final int recomputeEvery;
+
+    private int next;
+    private int count;
+    private int sinceRecompute;
+    private volatile long percentileNanos = -1;
+
+    /**
+     * @param capacity how many of the most recent samples are kept
+     * @param percentile between 0 and 100
+     * @param minSamples how many samples are needed before there is a percentile
+     */
+    public LatencyTracker(int capacity, double percentile, int minSamples) {
+        this.samples = new long[capacity];
+        this.percentile = percentile;
+        this.minSamples = Math.min(minSamples, capacity);
+        this.recomputeEvery = Math.max(1, capacity / 16);
+    }
+
+    public synchronized void record(long nanos) {
+        samples[next] = nanos;
+        next = (next + 1) % samples.length;
+        count = Math.min(count + 1, samples.length);
+
+        if (count >= minSamples && (++sinceRecompute >= recomputeEvery || percentileNanos < 0)) {
+            sinceRecompute = 0;
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile / 100 * count) - 1;
+            percentileNanos = sorted[Math.max(0, Math.min(index, count - 1))];
+        }
+    }
+
+    /**
+     * @return the percentile of the recent samples, or -1 if there are not enough samples yet
+     */
+    public long getPercentileNanos() {
+        return percentileNanos;
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.demo.repository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import com.example.demo.config.Replica;
+import com.example.demo.config.ReplicaSetDataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * ReplicationLagMonitor measures how far the slave is behind the master.
+ *
+ * On every heartbeat, the single row of ReplicationHeartbeat is bumped on the master and then read back from
+ * every healthy replica of the slave. The lag of a replica is how long ago (by the db clock) the heartbeat row seen
+ * on it was written. As each heartbeat is read right after it is written, this is close to the replication delay.
+ * The lag of the slave is that of its furthest behind replica, as any of them may serve a read.
+ *
+ * The lag is exposed as the employee.replication.lag gauge in milliseconds, with -1 while it is unknown, e.g.
+ * before the first heartbeat or while the slave cannot be reached.
+ *
+ * The seq of the heartbeat also serves as a consistency token (see ConsistencyContext). The next heartbeat is
+ * written after any write that has already committed, so once the slave has seen that heartbeat, it has also seen
+ * the write.
+ */
+@Component
+public class ReplicationLagMonitor {
+
+    public static final long UNKNOWN_LAG = -1;
+
+    private static final String BEAT_QUERY = "UPDATE ReplicationHeartbeat " +
+            "SET seq = seq + 1, beat_at = SYSUTCDATETIME() WHERE id = 1";
+
+    private static final String LAG_QUERY = "SELECT seq, DATEDIFF_BIG(MILLISECOND, beat_at, SYSUTCDATETIME()) " +
+            "FROM ReplicationHeartbeat WHERE id = 1";
+
+    private static final String NEXT_SEQ_QUERY = "SELECT seq + 1 FROM ReplicationHeartbeat WHERE id = 1";
+
+    private final JdbcTemplate master;
+    private final ReplicaSetDataSource slave;
+    private final long maxLagMillis;
+
+    private volatile long lagMillis = UNKNOWN_LAG;
+    // Seq of the latest heartbeat seen on every healthy replica of the slave
+    private volatile long slaveSeq = -1;
+
+    @Autowired
+    public ReplicationLagMonitor(@Qualifier("masterDataSource") DataSource masterDataSource,
+                                 ReplicaSetDataSource slaveDataSource,
+                                 @Value("${employee.replication.max-lag-millis}") long maxLagMillis,
+                                 MeterRegistry meterRegistry) {
+        this.master = new JdbcTemplate(masterDataSource);
+        this.slave = slaveDataSource;
+        this.maxLagMillis = maxLagMillis;
+
+        Gauge.builder("employee.replication.lag", this, ReplicationLagMonitor::getLagMillis)
+                .baseUnit("milliseconds")
+                .description("How far the slave is behind the master, or -1 if unknown")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${employee.replication.heartbeat-interval-millis}")
+    public void beat() {
+        try {
+            master.update(BEAT_QUERY);
+        } catch (DataAccessException dae) {
+            // The lag can still be measured from the previous heartbeat, which will just look older
+        }
+
+        long maxLag = UNKNOWN_LAG;
+        long minSeq = Long.MAX_VALUE;
+        for (Replica replica : slave.getReplicas()) {
+            if (!replica.isHealthy()) {
+                continue;
+            }
+
+            try {
+                List<long[]> heartbeat = new JdbcTemplate(replica.getDataSource()).query(LAG_QUERY,
+                        (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2)});
+                if (heartbeat.isEmpty()) {
+                    maxLag = UNKNOWN_LAG;
+                    minSeq = -1;
+                    break;
+                }
+                minSeq = Math.min(minSeq, heartbeat.get(0)[0]);
+                maxLag = Math.max(maxLag, Math.max(0, heartbeat.get(0)[1]));
+            } catch (DataAccessException dae) {
+                // The replica will be ejected by its health check, until then its lag is unknown
+                maxLag = UNKNOWN_LAG;
+                minSeq = -1;
+                break;
+            }
+        }
+
+        slaveSeq = minSeq == Long.MAX_VALUE ? -1 : minSeq;
+        lagMillis = maxLag;
+    }
+
+    /**
+     * Must be called after the write has committed.
+     *
+     * @return the consistency token which the slave reaches once it has replicated the write
+     */
+    public long nextToken() {
+        return master.queryForObject(NEXT_SEQ_QUERY, Long.class);
+    }
+
+    /**
+     * @return true if the slave is known to have replicated every write made before the token was issued
+     */
+    public boolean isCaughtUpTo(long token) {
+        return slaveSeq >= token;
+    }
+
+    public long getLagMillis() {
+        return lagMillis;
+    }
+
+    /**
+     * @return true if the slave is further behind than the configured maximum, or its lag is unknown
+     */
+    public boolean isLagging() {
+        long lag = lagMillis;
+        return lag == UNKNOWN_LAG || lag > maxLagMillis;
+    }
+}
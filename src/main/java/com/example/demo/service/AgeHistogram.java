@@ -0,0 +1,145 @@
+package com.example.demo.service;
+
+import com.example.demo.model.AgeCount;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * AgeHistogram counts employees per age, separately for each eligibility, in a Fenwick (binary indexed) tree.
+ *
+ * A Fenwick tree over ages 0 to maxAge stores in each slot the count of a range of ages whose length is the lowest
+ * set bit of its index. Both adding an employee and counting the employees up to an age then touch at most
+ * log2(maxAge) slots, and so does finding the age at a percentile, by descending the tree one bit at a time.
+ *
+ * Ages above maxAge are counted as maxAge, and negative ages as 0, so counts are only exact within that domain.
+ *
+ * Not thread safe, AgeIndex guards it with its lock.
+ */
+public final class AgeHistogram {
+
+    private final int maxAge;
+    // 1-based trees, the count of age a is added at index a + 1
+    private final long[] ineligible;
+    private final long[] eligible;
+
+    public AgeHistogram(int maxAge) {
+        this.maxAge = maxAge;
+        this.ineligible = new long[maxAge + 2];
+        this.eligible = new long[maxAge + 2];
+    }
+
+    public static AgeHistogram of(Iterable<AgeCount> counts, int maxAge) {
+        AgeHistogram histogram = new AgeHistogram(maxAge);
+        for (AgeCount count : counts) {
+            histogram.add(count.eligibility(), count.age(), count.count());
+        }
+        return histogram;
+    }
+
+    public int getMaxAge() {
+        return maxAge;
+    }
+
+    public void add(boolean eligibility, int age, long delta) {
+        long[] tree = treeOf(eligibility);
+        for (int i = clamp(age) + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * @return the number of employees of each eligibility and age, leaving out those with none
+     */
+    public List<AgeCount> counts() {
+        List<AgeCount> counts = new ArrayList<>();
+        for (int age = 0; age <= maxAge; age++) {
+            for (boolean eligibility : new boolean[]{false, true}) {
+                long count = countInRange(eligibility, age - 1, age);
+                if (count != 0) {
+                    counts.add(new AgeCount(eligibility, age, count));
+                }
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Moves every ineligible employee older than afterAge to eligible, the same as the bulk eligibility update.
+     */
+    public void grantEligibility(int afterAge) {
+        for (int age = Math.max(0, afterAge + 1); age <= maxAge; age++) {
+            long count = countInRange(false, age - 1, age);
+            if (count != 0) {
+                add(false, age, -count);
+                add(true, age, count);
+            }
+        }
+    }
+
+    /**
+     * @param eligibility only counts employees of this eligibility, or all employees if null
+     * @return the number of employees older than olderThan and at most upTo years old
+     */
+    public long countInRange(Boolean eligibility, int olderThan, int upTo) {
+        if (upTo <= olderThan) {
+            return 0;
+        }
+        return countUpTo(eligibility, upTo) - countUpTo(eligibility, olderThan);
+    }
+
+    /**
+     * Nearest-rank percentile: the lowest age such that at least percentile % of the employees are that old or
+     * younger.
+     *
+     * @param percentile in (0, 100]
+     * @return the age, or -1 if there are no employees of the eligibility
+     */
+    public int ageAtPercentile(Boolean eligibility, double percentile) {
+        long total = countUpTo(eligibility, maxAge);
+        if (total <= 0) {
+            return -1;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+
+        // Finds the last index whose prefix count is below rank, the age at rank is the next one
+        int index = 0;
+        for (int step = Integer.highestOneBit(ineligible.length - 1); step > 0; step >>= 1) {
+            int next = index + step;
+            if (next < ineligible.length) {
+                long count = slot(eligibility, next);
+                if (count < rank) {
+                    index = next;
+                    rank -= count;
+                }
+            }
+        }
+        return Math.min(index, maxAge);
+    }
+
+    private long countUpTo(Boolean eligibility, int age) {
+        if (age < 0) {
+            return 0;
+        }
+        long count = 0;
+        for (int i = Math.min(age, maxAge) + 1; i > 0; i -= i & -i) {
+            count += slot(eligibility, i);
+        }
+        return count;
+    }
+
+    private long slot(Boolean eligibility, int index) {
+        if (eligibility == null) {
+            return ineligible[index] + eligible[index];
+        }
+        return treeOf(eligibility)[index];
+    }
+
+    private long[] treeOf(boolean eligibility) {
+        return eligibility ? eligible : ineligible;
+    }
+
+    private int clamp(int age) {
+        return Math.max(0, Math.min(age, maxAge));
+    }
+}
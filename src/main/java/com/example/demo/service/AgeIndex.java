@@ -0,0 +1,225 @@
+package com.example.demo.service;
+
+import com.example.demo.model.AgeCount;
+import com.example.demo.model.Employee;
+import com.example.demo.repository.EmployeeDAO;
+import com.example.demo.repository.EmployeeWriteListener;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * AgeIndex keeps an AgeHistogram of all employees in memory, so that counting the employees of an eligibility
+ * within an age range, or finding the age at a percentile, takes O(log maxAge) instead of a query.
+ *
+ * It is built from the master and kept up to date by the writes made through EmployeeDAO. An eligibility update
+ * of the whole table is applied to the histogram as is, and one limited to an id range, like a chunk of an
+ * eligibility job, by the number of employees it updated per age. Only an update whose ages are not known leaves
+ * the index stale, and not used, until its next rebuild. Like FirstNameDictionary, a rebuild is only kept if no
+ * write was applied while the ages were being counted.
+ */
+@Service
+public class AgeIndex implements EmployeeWriteListener {
+
+    private static final int REBUILD_ATTEMPTS = 3;
+
+    private final EmployeeDAO repository;
+    private final int maxAge;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private AgeHistogram histogram;
+    private boolean stale;
+    private long changes;
+
+    @Autowired
+    public AgeIndex(EmployeeDAO repository, @Value("${employee.age-index.max-age}") int maxAge) {
+        this.repository = repository;
+        this.maxAge = maxAge;
+    }
+
+    @PostConstruct
+    void register() {
+        repository.addWriteListener(this);
+    }
+
+    public int getMaxAge() {
+        return maxAge;
+    }
+
+    /**
+     * @return false until the index has been built from the db, and while it is stale
+     */
+    public boolean isBuilt() {
+        lock.readLock().lock();
+        try {
+            return histogram != null && !stale;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of employees older than olderThan and at most upTo years old, or -1 if the index is not
+     * built
+     */
+    public long countInRange(Boolean eligibility, int olderThan, int upTo) {
+        lock.readLock().lock();
+        try {
+            return histogram == null || stale ? -1 : histogram.countInRange(eligibility, olderThan, upTo);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the age at the percentile, or -1 if the index is not built or there are no employees
+     */
+    public int ageAtPercentile(Boolean eligibility, double percentile) {
+        lock.readLock().lock();
+        try {
+            return histogram == null || stale ? -1 : histogram.ageAtPercentile(eligibility, percentile);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of employees of each eligibility and age, or null if the index is not built
+     */
+    public List<AgeCount> getCounts() {
+        lock.readLock().lock();
+        try {
+            return histogram == null || stale ? null : histogram.counts();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return a histogram of the given counts over the same age domain as this index
+     */
+    public AgeHistogram histogramOf(Iterable<AgeCount> counts) {
+        return AgeHistogram.of(counts, maxAge);
+    }
+
+    /**
+     * Also builds the index, as the first run is right after startup.
+     */
+    @Scheduled(fixedDelayString = "${employee.counters.reconcile-interval-millis}")
+    public void rebuild() {
+        for (int attempt = 0; attempt < REBUILD_ATTEMPTS; attempt++) {
+            long changesBefore;
+            lock.readLock().lock();
+            try {
+                changesBefore = changes;
+            } finally {
+                lock.readLock().unlock();
+            }
+
+            AgeHistogram rebuilt;
+            try {
+                rebuilt = histogramOf(repository.countByEligibilityAndAgeInMaster());
+            } catch (DataAccessException dae) {
+                // Keep the current index until the next rebuild
+                return;
+            }
+
+            lock.writeLock().lock();
+            try {
+                if (changes == changesBefore) {
+                    histogram = rebuilt;
+                    stale = false;
+                    return;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private void add(Employee employee, long delta) {
+        histogram.add(employee.isEligibility(), employee.getAge(), delta);
+    }
+
+    @Override
+    public boolean needsBeforeImage() {
+        return true;
+    }
+
+    @Override
+    public void onSaved(Employee before, Employee after) {
+        lock.writeLock().lock();
+        try {
+            changes++;
+            if (histogram != null) {
+                if (before != null) {
+                    add(before, -1);
+                }
+                add(after, 1);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onDeleted(Employee deleted) {
+        lock.writeLock().lock();
+        try {
+            changes++;
+            if (histogram != null) {
+                add(deleted, -1);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onEligibilityGranted(Integer afterAge, long lowId, long highId, long count,
+                                     Map<Integer, Integer> grantedByAge) {
+        lock.writeLock().lock();
+        try {
+            changes++;
+            if (histogram == null) {
+                return;
+            }
+            // Ages above maxAge share a slot with maxAge, so an update of only some of them cannot be applied
+            boolean wholeTable = lowId == Long.MIN_VALUE && highId == Long.MAX_VALUE;
+            if (grantedByAge != null) {
+                grantedByAge.forEach((age, granted) -> {
+                    histogram.add(false, age, -granted);
+                    histogram.add(true, age, granted);
+                });
+            } else if (wholeTable && afterAge < maxAge) {
+                histogram.grantEligibility(afterAge);
+            } else if (count > 0) {
+                stale = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onCleared() {
+        lock.writeLock().lock();
+        try {
+            changes++;
+            if (histogram != null) {
+                histogram = new AgeHistogram(maxAge);
+                stale = false;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
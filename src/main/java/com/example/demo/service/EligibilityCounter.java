@@ -0,0 +1,133 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Employee;
+import com.example.demo.repository.EmployeeDAO;
+import com.example.demo.repository.EmployeeWriteListener;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * EligibilityCounter keeps the number of eligible and ineligible employees in memory, so that counting them does
+ * not need a db connection.
+ *
+ * The counts are seeded from the master and then kept up to date by the writes made through EmployeeDAO. Each
+ * count is a base, set from the db, plus the sum of a LongAdder of the changes made since. A LongAdder spreads
+ * concurrent updates over separate cells, so writers do not contend on a single counter.
+ *
+ * The counts are reconciled against the master on a fixed delay. This corrects any drift, e.g. from concurrent
+ * writes to the same employee, writes made by other instances of this app or made directly in the db.
+ */
+@Service
+public class EligibilityCounter implements EmployeeWriteListener {
+
+    // Attempts at reconciling without a write racing the count queries, before a raced count is accepted anyway
+    private static final int RECONCILE_ATTEMPTS = 3;
+
+    private final EmployeeDAO repository;
+
+    private final LongAdder eligibleChanges = new LongAdder();
+    private final LongAdder ineligibleChanges = new LongAdder();
+    private volatile long eligibleBase;
+    private volatile long ineligibleBase;
+    private volatile boolean seeded;
+
+    @Autowired
+    public EligibilityCounter(EmployeeDAO repository) {
+        this.repository = repository;
+    }
+
+    @PostConstruct
+    void register() {
+        repository.addWriteListener(this);
+    }
+
+    /**
+     * @return false until the counts have been seeded from the db
+     */
+    public boolean isSeeded() {
+        return seeded;
+    }
+
+    public long getEligibleCount() {
+        return eligibleBase + eligibleChanges.sum();
+    }
+
+    public long getIneligibleCount() {
+        return ineligibleBase + ineligibleChanges.sum();
+    }
+
+    /**
+     * Also seeds the counts, as the first run is right after startup.
+     */
+    @Scheduled(fixedDelayString = "${employee.counters.reconcile-interval-millis}")
+    public void reconcile() {
+        for (int attempt = 1; attempt <= RECONCILE_ATTEMPTS; attempt++) {
+            long eligibleChangesBefore = eligibleChanges.sum();
+            long ineligibleChangesBefore = ineligibleChanges.sum();
+
+            long eligible;
+            long ineligible;
+            try {
+                eligible = repository.countByEligibilityInMaster(true);
+                ineligible = repository.countByEligibilityInMaster(false);
+            } catch (DataAccessException dae) {
+                // Keep the current counts until the next reconciliation
+                return;
+            }
+
+            // Changes made while counting may or may not be included in the counts, so try again
+            boolean raced = eligibleChanges.sum() != eligibleChangesBefore
+                    || ineligibleChanges.sum() != ineligibleChangesBefore;
+            if (!raced || attempt == RECONCILE_ATTEMPTS) {
+                eligibleBase = eligible - eligibleChangesBefore;
+                ineligibleBase = ineligible - ineligibleChangesBefore;
+                seeded = true;
+                return;
+            }
+        }
+    }
+
+    @Override
+    public boolean needsBeforeImage() {
+        return true;
+    }
+
+    @Override
+    public void onSaved(Employee before, Employee after) {
+        if (before != null) {
+            if (before.isEligibility() == after.isEligibility()) {
+                return;
+            }
+            changesOf(before.isEligibility()).decrement();
+        }
+        changesOf(after.isEligibility()).increment();
+    }
+
+    @Override
+    public void onDeleted(Employee deleted) {
+        changesOf(deleted.isEligibility()).decrement();
+    }
+
+    @Override
+    public void onEligibilityGranted(Integer afterAge, long lowId, long highId, long count,
+                                     Map<Integer, Integer> grantedByAge) {
+        eligibleChanges.add(count);
+        ineligibleChanges.add(-count);
+    }
+
+    @Override
+    public void onCleared() {
+        eligibleBase = -eligibleChanges.sum();
+        ineligibleBase = -ineligibleChanges.sum();
+    }
+
+    private LongAdder changesOf(boolean eligibility) {
+        return eligibility ? eligibleChanges : ineligibleChanges;
+    }
+}
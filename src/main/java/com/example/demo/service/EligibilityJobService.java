@@ -0,0 +1,179 @@
+package com.example.demo.service;
+
+import com.example.demo.model.EligibilityJob;
+import com.example.demo.repository.EligibilityJobRepository;
+import com.example.demo.repository.EmployeeDAO;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataAccessException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * EligibilityJobService runs "add eligibility after age" as a background job.
+ *
+ * The job works through its id range in chunks. Each chunk's UPDATE and the job's checkpoint are committed in the
+ * same master transaction, so the checkpoint always matches the rows that were actually updated.
+ *
+ * Every job is owned by one node, which renews its lease on every checkpoint. Once the application is ready, and
+ * then every sweep-interval-millis, unfinished jobs that are not owned or whose lease has expired are claimed and
+ * continued from their last checkpoint. A job is only run after its claim has succeeded, so two nodes never run
+ * the same job. Jobs that cannot be queued are left for the next sweep.
+ */
+@Service
+public class EligibilityJobService {
+
+    private final EligibilityJobRepository jobRepository;
+    private final EmployeeDAO employeeRepository;
+    private final TaskExecutor executor;
+    private final TransactionTemplate chunkTransaction;
+    private final int chunkSize;
+    private final long leaseMillis;
+    // Identifies this node as the owner of its jobs, for the lifetime of the process
+    private final String nodeId = UUID.randomUUID().toString();
+    // Jobs queued or running on this node, which sweeps must not queue again
+    private final Set<Long> localJobs = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public EligibilityJobService(EligibilityJobRepository jobRepository,
+                                 EmployeeDAO employeeRepository,
+                                 @Qualifier("eligibilityJobExecutor") TaskExecutor executor,
+                                 @Qualifier("masterTransactionManager") PlatformTransactionManager transactionManager,
+                                 @Value("${employee.eligibility.chunk-size}") int chunkSize,
+                                 @Value("${employee.eligibility.job.lease-millis}") long leaseMillis) {
+        this.jobRepository = jobRepository;
+        this.employeeRepository = employeeRepository;
+        this.executor = executor;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.leaseMillis = leaseMillis;
+    }
+
+    /**
+     * Persists a new job and queues it without waiting for any of it to run.
+     *
+     * @throws TaskRejectedException if the job queue is full. The job is then marked as failed.
+     */
+    public EligibilityJob submit(Integer age) throws DataAccessException, TaskRejectedException {
+        EligibilityJob job = jobRepository.save(new EligibilityJob(age, chunkSize, nodeId));
+        try {
+            execute(job.getId());
+        } catch (TaskRejectedException tre) {
+            job.fail("Rejected as the job queue is full");
+            jobRepository.save(job);
+            throw tre;
+        }
+
+        return job;
+    }
+
+    public Optional<EligibilityJob> getJob(Long id) throws DataAccessException {
+        return jobRepository.findById(id);
+    }
+
+    private void execute(Long jobId) {
+        localJobs.add(jobId);
+        try {
+            executor.execute(() -> {
+                try {
+                    run(jobId);
+                } finally {
+                    localJobs.remove(jobId);
+                }
+            });
+        } catch (TaskRejectedException tre) {
+            localJobs.remove(jobId);
+            throw tre;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${employee.eligibility.job.sweep-interval-millis}",
+            initialDelayString = "${employee.eligibility.job.sweep-interval-millis}")
+    public void resumeUnfinishedJobs() {
+        List<EligibilityJob.Status> unfinishedStatuses =
+                List.of(EligibilityJob.Status.PENDING, EligibilityJob.Status.RUNNING);
+        List<EligibilityJob> unfinished;
+        try {
+            unfinished = jobRepository.findByStatusIn(unfinishedStatuses);
+        } catch (DataAccessException dae) {
+            // Retried on the next sweep
+            return;
+        }
+
+        for (EligibilityJob job : unfinished) {
+            if (localJobs.contains(job.getId())) {
+                continue;
+            }
+
+            try {
+                Instant now = Instant.now();
+                if (jobRepository.claim(job.getId(), nodeId, now, now.minusMillis(leaseMillis),
+                        unfinishedStatuses) == 1) {
+                    execute(job.getId());
+                }
+            } catch (TaskRejectedException tre) {
+                // The queue is full, so leave the rest for the next sweep. This node keeps the claim, and another
+                // node may take the job over once the lease expires.
+                return;
+            } catch (DataAccessException dae) {
+                // Left for the next sweep
+            }
+        }
+    }
+
+    void run(Long jobId) {
+        Optional<EligibilityJob> found = jobRepository.findById(jobId);
+        if (found.isEmpty() || found.get().isFinished() || !nodeId.equals(found.get().getOwner())) {
+            return;
+        }
+
+        EligibilityJob job = found.get();
+        try {
+            if (!job.isStarted()) {
+                job.start(employeeRepository.findIneligibleIdRange(job.getAfterAge()));
+                job = jobRepository.save(job);
+            }
+
+            while (!job.isFinished()) {
+                job = runChunk(job);
+            }
+        } catch (ObjectOptimisticLockingFailureException oolfe) {
+            // Another node has taken over this job, so leave it to that node
+        } catch (RuntimeException re) {
+            // Reload the job as the failed chunk may have advanced the checkpoint of the instance we hold
+            jobRepository.findById(jobId).ifPresent(latest -> {
+                latest.fail(re.getMessage());
+                jobRepository.save(latest);
+            });
+        }
+    }
+
+    private EligibilityJob runChunk(EligibilityJob job) {
+        long lowId = job.nextLowId();
+        long highId = job.nextHighId();
+        long start = System.currentTimeMillis();
+
+        return chunkTransaction.execute(status -> {
+            int updated = employeeRepository.addEligibilityAfterAgeInIdRange(job.getAfterAge(), lowId, highId);
+            job.checkpoint(highId, updated, System.currentTimeMillis() - start);
+            return jobRepository.save(job);
+        });
+    }
+}
@@ -0,0 +1,267 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Employee;
+import com.example.demo.model.EmployeeFilter;
+import com.example.demo.repository.EmployeeDAO;
+import com.example.demo.repository.EmployeeWriteListener;
+import jakarta.annotation.PostConstruct;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * EmployeeBitmapIndex indexes employee ids by eligibility, age and name prefixes in compressed (Roaring) bitmaps,
+ * so that any combination of these predicates is answered by AND-ing and OR-ing bitmaps instead of needing its own
+ * query and db index.
+ *
+ * A Roaring bitmap splits ids into chunks of 2^16 and stores each chunk as whichever is smallest of a sorted array,
+ * a plain bitset or a list of runs, so dense and sparse sets of ids both stay compact and fast to combine.
+ *
+ * There is a bitmap per eligibility, per year of age from 0 to employee.age-index.max-age (older employees share
+ * the last one), and per upper-cased first and last name prefix of name-prefix-length characters. Ages are not
+ * bucketed any coarser, so that eligibility updates of all employees older than an age can be applied exactly.
+ *
+ * The index only narrows down candidates: matched employees are still loaded and checked against the filter, as
+ * prefixes may be longer than the indexed ones and the index may briefly disagree with the db. It is loaded by
+ * EmployeeTableLoader from the same scan of the table as EmployeeSnapshot, and kept up to date the same way.
+ */
+@Service
+public class EmployeeBitmapIndex implements EmployeeWriteListener {
+
+    private final EmployeeDAO repository;
+    private final EmployeeTableLoader loader;
+    private final boolean enabled;
+    private final int maxAge;
+    private final int namePrefixLength;
+    private final ReloadedState<Bitmaps> state = new ReloadedState<>(Bitmaps::new, Bitmaps::add);
+
+    @Autowired
+    public EmployeeBitmapIndex(EmployeeDAO repository,
+                               EmployeeTableLoader loader,
+                               @Value("${employee.bitmap-index.enabled}") boolean enabled,
+                               @Value("${employee.age-index.max-age}") int maxAge,
+                               @Value("${employee.bitmap-index.name-prefix-length}") int namePrefixLength) {
+        this.repository = repository;
+        this.loader = loader;
+        this.enabled = enabled;
+        this.maxAge = maxAge;
+        this.namePrefixLength = namePrefixLength;
+    }
+
+    @PostConstruct
+    void register() {
+        if (enabled) {
+            repository.addWriteListener(this);
+            loader.register(state);
+        }
+    }
+
+    /**
+     * @return false until the index has been loaded, or if it is disabled
+     */
+    public boolean isLoaded() {
+        return state.isLoaded();
+    }
+
+    /**
+     * @return the ids of the employees that may match the filter, a superset of those that do, or null if the
+     * index is not loaded
+     */
+    public Roaring64Bitmap match(EmployeeFilter filter) {
+        return state.read(bitmaps -> bitmaps.match(filter), null);
+    }
+
+    @Override
+    public boolean needsBeforeImage() {
+        return true;
+    }
+
+    @Override
+    public void onSaved(Employee before, Employee after) {
+        state.write(bitmaps -> {
+            if (before != null) {
+                bitmaps.remove(before);
+            }
+            bitmaps.add(after.getId(), after.getFirstName(), after.getLastName(), after.getAge(),
+                    after.isEligibility());
+        });
+    }
+
+    @Override
+    public void onDeleted(Employee deleted) {
+        state.write(bitmaps -> bitmaps.remove(deleted));
+    }
+
+    @Override
+    public void onEligibilityGranted(Integer afterAge, long lowId, long highId, long count,
+                                     Map<Integer, Integer> grantedByAge) {
+        state.write(bitmaps -> bitmaps.grantEligibility(afterAge, lowId, highId));
+    }
+
+    @Override
+    public void onCleared() {
+        state.write(Bitmaps::clear);
+    }
+
+    private String prefixOf(String name) {
+        String upperCaseName = name.toUpperCase(Locale.ROOT);
+        return upperCaseName.length() <= namePrefixLength
+                ? upperCaseName : upperCaseName.substring(0, namePrefixLength);
+    }
+
+    private int slotOf(int age) {
+        return Math.max(0, Math.min(age, maxAge));
+    }
+
+    /**
+     * The bitmaps of the index. Not thread safe, ReloadedState guards it with its lock.
+     */
+    private final class Bitmaps {
+
+        private final Roaring64Bitmap all = new Roaring64Bitmap();
+        private final Roaring64Bitmap eligible = new Roaring64Bitmap();
+        private final Roaring64Bitmap ineligible = new Roaring64Bitmap();
+        private final Roaring64Bitmap[] ages = new Roaring64Bitmap[maxAge + 1];
+        private final Map<String, Roaring64Bitmap> firstNamePrefixes = new HashMap<>();
+        private final Map<String, Roaring64Bitmap> lastNamePrefixes = new HashMap<>();
+
+        Bitmaps() {
+            for (int age = 0; age <= maxAge; age++) {
+                ages[age] = new Roaring64Bitmap();
+            }
+        }
+
+        void add(long id, String firstName, String lastName, int age, boolean eligibility) {
+            all.addLong(id);
+            (eligibility ? eligible : ineligible).addLong(id);
+            ages[slotOf(age)].addLong(id);
+            if (firstName != null) {
+                firstNamePrefixes.computeIfAbsent(prefixOf(firstName), key -> new Roaring64Bitmap()).addLong(id);
+            }
+            if (lastName != null) {
+                lastNamePrefixes.computeIfAbsent(prefixOf(lastName), key -> new Roaring64Bitmap()).addLong(id);
+            }
+        }
+
+        void remove(Employee employee) {
+            long id = employee.getId();
+            all.removeLong(id);
+            eligible.removeLong(id);
+            ineligible.removeLong(id);
+            ages[slotOf(employee.getAge())].removeLong(id);
+            removeFrom(firstNamePrefixes, employee.getFirstName(), id);
+            removeFrom(lastNamePrefixes, employee.getLastName(), id);
+        }
+
+        /**
+         * Same as the bulk eligibility update, applied to the bitmaps.
+         */
+        void grantEligibility(int afterAge, long lowId, long highId) {
+            Roaring64Bitmap older = new Roaring64Bitmap();
+            for (int age = afterAge < maxAge ? slotOf(afterAge + 1) : maxAge; age <= maxAge; age++) {
+                older.or(ages[age]);
+            }
+            older.and(ineligible);
+
+            Roaring64Bitmap granted = older;
+            if (lowId != Long.MIN_VALUE || highId != Long.MAX_VALUE) {
+                granted = new Roaring64Bitmap();
+                Roaring64Bitmap inRange = granted;
+                older.forEach(id -> {
+                    if (id >= lowId && id <= highId) {
+                        inRange.addLong(id);
+                    }
+                });
+            }
+
+            eligible.or(granted);
+            // Not every employee in the last age slot is necessarily older than afterAge, so they are kept as
+            // possibly ineligible too
+            if (afterAge < maxAge) {
+                ineligible.andNot(granted);
+            }
+        }
+
+        void clear() {
+            all.clear();
+            eligible.clear();
+            ineligible.clear();
+            for (Roaring64Bitmap age : ages) {
+                age.clear();
+            }
+            firstNamePrefixes.clear();
+            lastNamePrefixes.clear();
+        }
+
+        Roaring64Bitmap match(EmployeeFilter filter) {
+            Roaring64Bitmap matched = all.clone();
+            if (filter.eligibility() != null) {
+                matched.and(filter.eligibility() ? eligible : ineligible);
+            }
+            if (filter.minAge() != null || filter.maxAge() != null) {
+                matched.and(agesBetween(filter.minAge(), filter.maxAge()));
+            }
+            if (filter.firstNamePrefixes() != null && !filter.firstNamePrefixes().isEmpty()) {
+                matched.and(namesStartingWith(firstNamePrefixes, filter.firstNamePrefixes()));
+            }
+            if (filter.lastNamePrefixes() != null && !filter.lastNamePrefixes().isEmpty()) {
+                matched.and(namesStartingWith(lastNamePrefixes, filter.lastNamePrefixes()));
+            }
+            return matched;
+        }
+
+        private Roaring64Bitmap agesBetween(Integer minAge, Integer maxAgeExcluded) {
+            Roaring64Bitmap matched = new Roaring64Bitmap();
+            int from = minAge == null ? 0 : minAge;
+            if (maxAgeExcluded != null && maxAgeExcluded <= from) {
+                return matched;
+            }
+            int to = maxAgeExcluded == null ? Integer.MAX_VALUE : maxAgeExcluded - 1;
+            for (int age = slotOf(from); age <= slotOf(to); age++) {
+                matched.or(ages[age]);
+            }
+            return matched;
+        }
+
+        private Roaring64Bitmap namesStartingWith(Map<String, Roaring64Bitmap> prefixes, List<String> wanted) {
+            Roaring64Bitmap matched = new Roaring64Bitmap();
+            for (String prefix : wanted) {
+                String upperCasePrefix = prefix.toUpperCase(Locale.ROOT);
+                if (upperCasePrefix.length() >= namePrefixLength) {
+                    Roaring64Bitmap indexed = prefixes.get(prefixOf(upperCasePrefix));
+                    if (indexed != null) {
+                        matched.or(indexed);
+                    }
+                    continue;
+                }
+
+                // Shorter than the indexed prefixes, so every indexed prefix starting with it matches
+                prefixes.forEach((indexedPrefix, ids) -> {
+                    if (indexedPrefix.startsWith(upperCasePrefix)) {
+                        matched.or(ids);
+                    }
+                });
+            }
+            return matched;
+        }
+
+        private void removeFrom(Map<String, Roaring64Bitmap> prefixes, String name, long id) {
+            if (name == null) {
+                return;
+            }
+            Roaring64Bitmap ids = prefixes.get(prefixOf(name));
+            if (ids != null) {
+                ids.removeLong(id);
+                if (ids.isEmpty()) {
+                    prefixes.remove(prefixOf(name));
+                }
+            }
+        }
+    }
+}
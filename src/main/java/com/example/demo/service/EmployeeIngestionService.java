@@ -0,0 +1,149 @@
+package com.example.demo.service;
+
+import com.example.demo.exception.EmployeeIngestionException;
+import com.example.demo.model.Employee;
+import com.example.demo.model.IngestionSummary;
+import com.example.demo.repository.EmployeeDAO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * EmployeeIngestionService registers employees from an NDJSON stream (one JSON employee per line).
+ *
+ * Lines are parsed one at a time and saved in chunks of a fixed size, each chunk in its own transaction. The next
+ * line is only read after the current chunk is committed, so a slow db slows down reading from the client instead
+ * of filling up the heap, and memory use does not depend on the size of the upload.
+ *
+ * Ingested employees are always registered as new employees, so any id in the input is ignored.
+ */
+@Service
+public class EmployeeIngestionService {
+
+    private final EmployeeDAO repository;
+    private final ObjectReader employeeReader;
+    private final int chunkSize;
+    private final int maxReportedRejections;
+    private final int maxAge;
+
+    @Autowired
+    public EmployeeIngestionService(EmployeeDAO repository,
+                                    ObjectMapper objectMapper,
+                                    @Value("${employee.ingestion.chunk-size}") int chunkSize,
+                                    @Value("${employee.ingestion.max-reported-rejections}") int maxReportedRejections,
+                                    @Value("${employee.age-index.max-age}") int maxAge) {
+        this.repository = repository;
+        this.employeeReader = objectMapper.readerFor(Employee.class);
+        this.chunkSize = chunkSize;
+        this.maxReportedRejections = maxReportedRejections;
+        this.maxAge = maxAge;
+    }
+
+    /**
+     * @param gzip whether the body is gzip compressed
+     * @throws EmployeeIngestionException if the body cannot be read or the db is unavailable. Chunks committed
+     * before that are described by the summary of the exception.
+     */
+    public IngestionSummary ingest(InputStream body, boolean gzip) throws EmployeeIngestionException {
+        IngestionSummary summary = new IngestionSummary(maxReportedRejections);
+        List<Employee> chunk = new ArrayList<>(chunkSize);
+        List<Long> chunkLines = new ArrayList<>(chunkSize);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                gzip ? new GZIPInputStream(body) : body, StandardCharsets.UTF_8))) {
+            long lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+
+                Employee employee = parse(line);
+                if (employee == null) {
+                    summary.reject(lineNumber);
+                    continue;
+                }
+
+                chunk.add(employee);
+                chunkLines.add(lineNumber);
+                if (chunk.size() == chunkSize) {
+                    commit(chunk, chunkLines, summary);
+                }
+            }
+
+            commit(chunk, chunkLines, summary);
+        } catch (IOException | DataAccessException e) {
+            throw new EmployeeIngestionException(summary, e);
+        }
+
+        return summary;
+    }
+
+    /**
+     * @return the employee on the line, or null if the line is not a valid employee
+     */
+    private Employee parse(String line) {
+        Employee parsed;
+        try {
+            parsed = employeeReader.readValue(line);
+        } catch (JsonProcessingException jpe) {
+            return null;
+        }
+
+        if (parsed == null || parsed.getFirstName() == null || !EmployeeService.isValidAge(parsed.getAge(), maxAge)) {
+            return null;
+        }
+
+        return copyAsNew(parsed);
+    }
+
+    /**
+     * Saves the chunk in a single transaction. If that fails, the employees are saved one at a time so that only
+     * the offending lines are rejected.
+     */
+    private void commit(List<Employee> chunk, List<Long> chunkLines, IngestionSummary summary) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+
+        long lastLine = chunkLines.get(chunkLines.size() - 1);
+        try {
+            repository.saveAll(chunk);
+            summary.accept(chunk.size(), lastLine);
+        } catch (DataAccessException dae) {
+            for (int i = 0; i < chunk.size(); i++) {
+                try {
+                    // The failed transaction may have assigned ids, so save a copy without one
+                    repository.save(copyAsNew(chunk.get(i)));
+                    summary.accept(1, chunkLines.get(i));
+                } catch (DataIntegrityViolationException dive) {
+                    summary.reject(chunkLines.get(i));
+                }
+            }
+        }
+
+        chunk.clear();
+        chunkLines.clear();
+    }
+
+    private static Employee copyAsNew(Employee employee) {
+        return new Employee(employee.getFirstName(), employee.getLastName(), employee.getAge(),
+                employee.isEligibility());
+    }
+}
@@ -1,17 +1,41 @@
 package com.example.demo.service;
 
+import com.example.demo.exception.InvalidCursorException;
 import com.example.demo.exception.InvalidEmployeeAgeException;
+import com.example.demo.repository.EmployeeChangeLog;
+import com.example.demo.repository.ConsistencyContext;
+import com.example.demo.repository.EmployeeChunkedBatchSaver;
 import com.example.demo.repository.EmployeeDAO;
+import com.example.demo.repository.EmployeeGroupCommitter;
+import com.example.demo.repository.EmployeeProjection;
+import com.example.demo.model.BatchSaveResult;
 import com.example.demo.model.Employee;
+import com.example.demo.model.EmployeeChanges;
+import com.example.demo.model.EmployeeCursor;
+import com.example.demo.model.EmployeeField;
+import com.example.demo.model.EmployeeFilter;
+import com.example.demo.model.EmployeeRecord;
+import com.example.demo.model.EmployeePage;
+import com.example.demo.model.FirstNameCount;
+import com.example.demo.model.ProjectedEmployees;
+import com.example.demo.model.Versioned;
 
+import org.roaringbitmap.longlong.PeekableLongIterator;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * @Service marks a class as a service layer component.
@@ -22,65 +46,364 @@ import java.util.List;
 @Service
 public class EmployeeService {
 
+    // Most candidate ids loaded per findAllById by filterEmployees, below the 2100 parameters allowed by SQL Server
+    private static final int FILTER_BATCH_SIZE = 1000;
 
     @Autowired
     private EmployeeDAO repository;
 
+    @Autowired
+    private EligibilityCounter eligibilityCounter;
+
+    @Autowired
+    private FirstNameDictionary firstNameDictionary;
+
+    @Autowired
+    private EmployeeSnapshot snapshot;
+
+    @Autowired
+    private AgeIndex ageIndex;
+
+    @Autowired
+    private EmployeeBitmapIndex bitmapIndex;
+
+    @Autowired
+    private SingleFlight singleFlight;
+
+    @Autowired
+    private EmployeeChangeLog changeLog;
+
+    @Autowired
+    private EmployeeGroupCommitter groupCommitter;
+
+    @Autowired
+    private EmployeeChunkedBatchSaver chunkedBatchSaver;
+
+    /**
+     * Ages above maxAge are rejected rather than stored, so that AgeIndex, which only counts ages up to maxAge,
+     * and the stats computed from it stay exact.
+     *
+     * @param maxAge the oldest age AgeIndex counts, see AgeIndex.getMaxAge
+     */
+    static boolean isValidAge(Integer age, int maxAge) {
+        return age != null && age >= 0 && age <= maxAge;
+    }
+
+    /**
+     * @throws InvalidEmployeeAgeException for the first employee whose age is not valid
+     */
+    private void validateAges(Employee[] employees) throws InvalidEmployeeAgeException {
+        for (Employee employee : employees) {
+            if (!isValidAge(employee.getAge(), this.ageIndex.getMaxAge())) {
+                throw new InvalidEmployeeAgeException(employee.getAge());
+            }
+        }
+    }
+
+    /**
+     * Runs a db read through SingleFlight, so that concurrent identical reads share one query. Requests with a
+     * consistency token are not coalesced, as they must see their own writes and the shared read may have been
+     * made before their write replicated.
+     */
+    private <T> T coalesced(String name, List<?> arguments, Supplier<T> query) {
+        if (ConsistencyContext.getToken() != ConsistencyContext.NO_TOKEN) {
+            return query.get();
+        }
+        return this.singleFlight.execute(name, arguments, query);
+    }
+
+    private <T> T coalesced(String name, Supplier<T> query) {
+        return coalesced(name, List.of(), query);
+    }
+
+    /**
+     * Saved in a batch with concurrent registrations by EmployeeGroupCommitter when group commit is enabled.
+     */
     public Employee saveEmployee(Employee employee) throws DataAccessException, InvalidEmployeeAgeException {
-        if (employee.getAge() == null || employee.getAge() < 0) {
+        if (!isValidAge(employee.getAge(), this.ageIndex.getMaxAge())) {
             throw new InvalidEmployeeAgeException(employee.getAge());
         }
 
+        if (this.groupCommitter.isEnabled()) {
+            return this.groupCommitter.save(employee);
+        }
         return this.repository.save(employee);
     }
 
-    public ArrayList<Employee> batchSaveEmployee(Employee[] employees) throws DataAccessException {
+    /**
+     * Nothing is saved if any of the employees has an invalid age.
+     */
+    public ArrayList<Employee> batchSaveEmployee(Employee[] employees)
+            throws DataAccessException, InvalidEmployeeAgeException {
         ArrayList<Employee> result = new ArrayList<>();
         if (employees == null) {
             return result;
         }
+        validateAges(employees);
 
         List<Employee> employeesList = new ArrayList<>(Arrays.asList(employees));
         this.repository.saveAll(employeesList).forEach(result::add);
         return result;
     }
 
-    public ArrayList<Employee> getEmployees() throws DataAccessException {
-        return new ArrayList<>(this.repository.findAll());
+    /**
+     * Saves the employees in chunks, concurrently and each in its own transaction, see EmployeeChunkedBatchSaver.
+     * Unlike batchSaveEmployee, some chunks may be saved while others fail. Ages are still all checked first, and
+     * nothing is saved if any of them is invalid.
+     */
+    public BatchSaveResult parallelBatchSaveEmployee(Employee[] employees) throws InvalidEmployeeAgeException {
+        if (employees == null) {
+            return new BatchSaveResult(0, 0, new ArrayList<>());
+        }
+        validateAges(employees);
+
+        return this.chunkedBatchSaver.saveAll(Arrays.asList(employees));
+    }
+
+    /**
+     * The version of the Employees table, shared by every node (see EmployeeDAO.findEmployeesVersion), to check
+     * whether a client already has the current employees, names or counts without reading them.
+     */
+    public String getEmployeesVersion() throws DataAccessException {
+        return this.repository.findEmployeesVersion();
     }
 
-    public ArrayList<Employee> findEmployeesWithDistinctFirstName() throws DataAccessException {
-        return new ArrayList<>(this.repository.findDistinctFirstName());
+    /**
+     * Read through the JDBC record read path, as the employees are only serialized. Concurrent reads share one
+     * query, as the records are immutable.
+     */
+    public Versioned<ArrayList<EmployeeRecord>> getEmployees() throws DataAccessException {
+        Versioned<List<EmployeeRecord>> records = coalesced("findAllRecords", this.repository::findAllRecords);
+        return new Versioned<>(records.version(), new ArrayList<>(records.value()));
     }
 
-    public long countEligible() throws DataAccessException {
-        return this.repository.countByEligibility(true);
+    /**
+     * Reads every employee with only the given fields, selecting only their columns.
+     */
+    public Versioned<ProjectedEmployees> getEmployees(Set<EmployeeField> fields) throws DataAccessException {
+        EmployeeProjection projection = EmployeeProjection.of(fields);
+        Versioned<List<Object[]>> rows = this.repository.findAllProjected(projection);
+        return new Versioned<>(rows.version(), new ProjectedEmployees(projection.getFields(), rows.value()));
     }
 
-    public void addEligibilityAfterAge(Integer age) throws DataAccessException {
-        ArrayList<Employee> records = new ArrayList<>(
-                this.repository.findByEligibilityAndAgeAfterOrderByAgeAsc(false, age)
-        );
+    /**
+     * Passes every employee to the consumer as it is read from the db, without holding them all in memory.
+     */
+    public void streamEmployees(Consumer<Employee> consumer) throws DataAccessException {
+        this.repository.forEachEmployee(consumer);
+    }
+
+    /**
+     * Lists at most limit employees inserted, updated or deleted after the change token, oldest change first.
+     * Always read from the master, see EmployeeChangeLog.
+     */
+    public EmployeeChanges getEmployeeChanges(long since, int limit) throws DataAccessException {
+        return this.changeLog.findChangesSince(since, limit);
+    }
 
-        System.out.println("yolo");
-        System.out.println(records);
+    /**
+     * Returns the page of at most size employees after the cursor.
+     *
+     * @param cursor nextCursor of the previous page, or null for the first page
+     * @param eligibility for the first page only, lists employees of this eligibility in (age, id) order instead
+     *                    of all employees in id order. Later pages keep the order of their cursor.
+     */
+    public EmployeePage getEmployeePage(String cursor, int size, Boolean eligibility)
+            throws DataAccessException, InvalidCursorException {
+        EmployeeCursor after = cursor == null ? EmployeeCursor.first(eligibility) : EmployeeCursor.decode(cursor);
 
-        for (Employee curr : records) {
-            this.repository.updateEmployeeEligibility(curr.getId(), true);
+        // Fetch one extra employee to know if there is a next page without a separate count query
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<Employee> employees = after.isAgeOrdered()
+                ? this.repository.findByEligibilityAfterAgeAndId(after.eligibility(), after.age(), after.id(), limit)
+                : this.repository.findByIdGreaterThanOrderByIdAsc(after.id(), limit);
+
+        if (employees.size() <= size) {
+            return new EmployeePage(employees, null);
         }
+
+        List<Employee> page = employees.subList(0, size);
+        return new EmployeePage(page, after.after(page.get(size - 1)).encode());
     }
 
-    @Transactional
-    public void batchAddEligibilityAfterAge(Integer age) throws DataAccessException {
-        ArrayList<Employee> records = new ArrayList<>(
-                this.repository.findByEligibilityAndAgeAfterOrderByAgeAsc(false, age)
-        );
+    /**
+     * Returns at most limit employees matching the filter, in id order.
+     *
+     * The ids of the candidates are taken from the in-memory EmployeeBitmapIndex, and only those are loaded with
+     * findAllById, in batches in id order until enough of them match. As candidates may not match, e.g. names
+     * longer than the indexed prefixes, each batch is sized by the share of candidates that matched so far, up to
+     * FILTER_BATCH_SIZE, so that a loose match takes a few round-trips instead of one per match. Until the index is
+     * loaded, the filter and the limit are run in the db instead.
+     */
+    public ArrayList<Employee> filterEmployees(EmployeeFilter filter, int limit) throws DataAccessException {
+        Roaring64Bitmap candidates = this.bitmapIndex.match(filter);
+        if (candidates == null) {
+            return new ArrayList<>(this.repository.findByFilter(filter, limit));
+        }
+
+        ArrayList<Employee> matched = new ArrayList<>();
+        PeekableLongIterator ids = candidates.getLongIterator();
+        int batchSize = Math.min(limit, FILTER_BATCH_SIZE);
+        while (matched.size() < limit && ids.hasNext()) {
+            List<Long> batch = new ArrayList<>(batchSize);
+            while (batch.size() < batchSize && ids.hasNext()) {
+                batch.add(ids.next());
+            }
+
+            List<Employee> loaded = new ArrayList<>(this.repository.findAllById(batch));
+            loaded.sort(Comparator.comparing(Employee::getId));
+            int hits = 0;
+            for (Employee employee : loaded) {
+                if (matched.size() < limit && filter.matches(employee)) {
+                    matched.add(employee);
+                    hits++;
+                }
+            }
+
+            long remaining = limit - matched.size();
+            batchSize = hits == 0 ? FILTER_BATCH_SIZE
+                    : (int) Math.min(FILTER_BATCH_SIZE, Math.max(1, remaining * batch.size() / hits));
+        }
+        return matched;
+    }
+
+    /**
+     * Read through the JDBC record read path. Concurrent reads of the same threshold share one query.
+     *
+     * @return the employees of that eligibility older than age, youngest first
+     */
+    public ArrayList<EmployeeRecord> getEmployeesOlderThan(boolean eligibility, int age) throws DataAccessException {
+        return new ArrayList<>(coalesced("findRecordsByEligibilityAndAgeAfter", List.of(eligibility, age),
+                () -> this.repository.findRecordsByEligibilityAndAgeAfterOrderByAgeAsc(eligibility, age)).value());
+    }
+
+    public ArrayList<EmployeeRecord> findEmployeesWithDistinctFirstName() throws DataAccessException {
+        return new ArrayList<>(coalesced("findDistinctFirstName", this.repository::findDistinctFirstNameRecords));
+    }
+
+    /**
+     * Answered from the in-memory FirstNameDictionary once it has been built, and from the db until then.
+     */
+    public ArrayList<String> getDistinctFirstNames() throws DataAccessException {
+        if (this.firstNameDictionary.isBuilt()) {
+            return new ArrayList<>(this.firstNameDictionary.getDistinctFirstNames());
+        }
+
+        ArrayList<String> firstNames = new ArrayList<>();
+        coalesced("findDistinctFirstName", this.repository::findDistinctFirstNameRecords)
+                .forEach(e -> firstNames.add(e.firstName()));
+        return firstNames;
+    }
 
-        for (Employee curr : records) {
-            curr.setEligibility(true);
+    /**
+     * @return the n most common first names with their number of employees, most common first
+     */
+    public List<FirstNameCount> getMostCommonFirstNames(int n) throws DataAccessException {
+        if (this.firstNameDictionary.isBuilt()) {
+            return this.firstNameDictionary.getMostCommon(n);
+        }
+
+        List<FirstNameCount> counts = new ArrayList<>(
+                coalesced("countByFirstName", this.repository::countByFirstName));
+        counts.sort(Comparator.comparing(FirstNameCount::count).reversed());
+        return counts.subList(0, Math.min(n, counts.size()));
+    }
+
+    /**
+     * Answered from the in-memory EligibilityCounter once it has been seeded, and from the db until then.
+     */
+    public long countEligible() throws DataAccessException {
+        if (this.eligibilityCounter.isSeeded()) {
+            return this.eligibilityCounter.getEligibleCount();
         }
 
-        this.repository.saveAll(records);
+        return coalesced("countByEligibility", List.of(true), () -> this.repository.countByEligibility(true));
+    }
+
+    /**
+     * Counts employees by scanning the in-memory EmployeeSnapshot once it has been loaded, and in the db until then,
+     * where concurrent identical counts share one query.
+     *
+     * @param eligibility only counts employees of this eligibility, or all employees if null
+     * @param afterAge only counts employees older than this, or of any age if null
+     */
+    public long countEmployees(Boolean eligibility, Integer afterAge) throws DataAccessException {
+        long count = this.snapshot.count(eligibility, afterAge);
+        if (count >= 0) {
+            return count;
+        }
+
+        if (eligibility == null) {
+            return afterAge == null
+                    ? coalesced("count", this.repository::count)
+                    : coalesced("countByAgeGreaterThan", List.of(afterAge),
+                            () -> this.repository.countByAgeGreaterThan(afterAge));
+        }
+        return afterAge == null
+                ? coalesced("countByEligibility", List.of(eligibility),
+                        () -> this.repository.countByEligibility(eligibility))
+                : coalesced("countByEligibilityAndAgeGreaterThan", List.of(eligibility, afterAge),
+                        () -> this.repository.countByEligibilityAndAgeGreaterThan(eligibility, afterAge));
+    }
+
+    /**
+     * Answered from the in-memory AgeIndex once it has been built, and from a histogram of the db until then.
+     *
+     * @param eligibility only counts employees of this eligibility, or all employees if null
+     * @return the number of employees older than olderThan and at most upTo years old
+     */
+    public long countInAgeRange(Boolean eligibility, int olderThan, int upTo) throws DataAccessException {
+        long count = this.ageIndex.countInRange(eligibility, olderThan, upTo);
+        if (count >= 0) {
+            return count;
+        }
+
+        return this.ageIndex.histogramOf(this.repository.countByEligibilityAndAge())
+                .countInRange(eligibility, olderThan, upTo);
+    }
+
+    /**
+     * @param percentile in (0, 100]
+     * @return the lowest age such that at least percentile % of the employees are that old or younger, or -1 if
+     * there are no employees
+     */
+    public int getAgeAtPercentile(Boolean eligibility, double percentile) throws DataAccessException {
+        if (this.ageIndex.isBuilt()) {
+            return this.ageIndex.ageAtPercentile(eligibility, percentile);
+        }
+
+        return this.ageIndex.histogramOf(this.repository.countByEligibilityAndAge())
+                .ageAtPercentile(eligibility, percentile);
+    }
+
+    /**
+     * Number of employees that setting eligibility after age would update, known without touching the db.
+     *
+     * @return the count, or -1 while the AgeIndex is not built
+     */
+    public long countToBeGrantedEligibility(Integer age) {
+        return this.ageIndex.countInRange(false, age, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Sets eligibility for all ineligible employees older than age using the chunked, set-based update of
+     * the master repository.
+     *
+     * @return number of employees whose eligibility was set
+     */
+    public long addEligibilityAfterAge(Integer age) throws DataAccessException {
+        return this.repository.addEligibilityAfterAge(age);
+    }
+
+    /**
+     * Used to load every record into a single transaction and dirty-check them all. It now shares the chunked
+     * update with addEligibilityAfterAge, as committing each id range on its own is what keeps large batches from
+     * escalating to a table lock.
+     *
+     * @return number of employees whose eligibility was set
+     */
+    public long batchAddEligibilityAfterAge(Integer age) throws DataAccessException {
+        return this.repository.addEligibilityAfterAge(age);
     }
 
     @Transactional
@@ -0,0 +1,312 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Employee;
+import com.example.demo.repository.EmployeeDAO;
+import com.example.demo.repository.EmployeeWriteListener;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * EmployeeSnapshot holds a columnar copy of the Employees table in memory for analytical queries, e.g. counting
+ * the eligible employees older than some age, so that they do not need a round trip to the db or any Employee
+ * objects.
+ *
+ * Each column is a primitive array indexed by row: ids and ages, and eligibility as a bitset. Only the columns
+ * that queries filter on are kept. Rows are found by id through an open addressing map of primitive ids to rows.
+ * Deleted rows are only marked as such in a bitset of live rows, so that no other row moves.
+ *
+ * The snapshot is loaded from the master by EmployeeTableLoader, then kept up to date by the writes made through
+ * EmployeeDAO, and reloaded on a fixed delay to correct any drift and drop deleted rows (see ReloadedState).
+ *
+ * Queries scan the columns in parallel chunks without allocating per row.
+ */
+@Service
+public class EmployeeSnapshot implements EmployeeWriteListener {
+
+    // Rows per parallel scan task, a multiple of 64 so that each task covers whole words of the bitsets
+    private static final int SCAN_CHUNK_ROWS = 1 << 16;
+
+    private final EmployeeDAO repository;
+    private final EmployeeTableLoader loader;
+    private final boolean enabled;
+    private final ReloadedState<Columns> state = new ReloadedState<>(Columns::new,
+            (columns, id, firstName, lastName, age, eligibility) -> columns.put(id, age, eligibility));
+
+    @Autowired
+    public EmployeeSnapshot(EmployeeDAO repository, EmployeeTableLoader loader,
+                            @Value("${employee.snapshot.enabled}") boolean enabled) {
+        this.repository = repository;
+        this.loader = loader;
+        this.enabled = enabled;
+    }
+
+    @PostConstruct
+    void register() {
+        if (enabled) {
+            repository.addWriteListener(this);
+            loader.register(state);
+        }
+    }
+
+    /**
+     * @return false until the snapshot has been loaded, or if it is disabled
+     */
+    public boolean isLoaded() {
+        return state.isLoaded();
+    }
+
+    /**
+     * @param eligibility only counts employees of this eligibility, or all employees if null
+     * @param afterAge only counts employees older than this, or of any age if null
+     * @return the number of employees, or -1 if the snapshot is not loaded
+     */
+    public long count(Boolean eligibility, Integer afterAge) {
+        return state.read(scanned -> {
+            int chunks = (scanned.size + SCAN_CHUNK_ROWS - 1) / SCAN_CHUNK_ROWS;
+            return IntStream.range(0, chunks).parallel()
+                    .mapToLong(chunk -> scanned.count(chunk * SCAN_CHUNK_ROWS,
+                            Math.min(scanned.size, (chunk + 1) * SCAN_CHUNK_ROWS), eligibility, afterAge))
+                    .sum();
+        }, -1L);
+    }
+
+    @Override
+    public boolean needsBeforeImage() {
+        return true;
+    }
+
+    @Override
+    public void onSaved(Employee before, Employee after) {
+        state.write(columns -> columns.put(after.getId(), after.getAge(), after.isEligibility()));
+    }
+
+    @Override
+    public void onDeleted(Employee deleted) {
+        state.write(columns -> columns.remove(deleted.getId()));
+    }
+
+    @Override
+    public void onEligibilityGranted(Integer afterAge, long lowId, long highId, long count,
+                                     Map<Integer, Integer> grantedByAge) {
+        state.write(columns -> columns.grantEligibility(afterAge, lowId, highId));
+    }
+
+    @Override
+    public void onCleared() {
+        state.write(Columns::clear);
+    }
+
+    /**
+     * The columns of the snapshot. Not thread safe, ReloadedState guards it with its lock.
+     */
+    private static final class Columns {
+
+        private static final int INITIAL_CAPACITY = 1024;
+
+        private long[] ids = new long[INITIAL_CAPACITY];
+        private int[] ages = new int[INITIAL_CAPACITY];
+        private long[] eligible = new long[INITIAL_CAPACITY / 64];
+        private long[] live = new long[INITIAL_CAPACITY / 64];
+        // Rows in use, live or deleted
+        private int size;
+
+        private final RowsById rowsById = new RowsById(INITIAL_CAPACITY * 2);
+
+        void put(long id, int age, boolean eligibility) {
+            int row = rowsById.get(id);
+            if (row == RowsById.NO_ROW) {
+                row = append(id);
+            }
+            ages[row] = age;
+            setBit(eligible, row, eligibility);
+        }
+
+        void remove(long id) {
+            int row = rowsById.remove(id);
+            if (row != RowsById.NO_ROW) {
+                setBit(live, row, false);
+            }
+        }
+
+        /**
+         * Same as the bulk eligibility update, applied to the rows of the snapshot.
+         */
+        void grantEligibility(int afterAge, long lowId, long highId) {
+            for (int row = 0; row < size; row++) {
+                if (bit(live, row) && ages[row] > afterAge && ids[row] >= lowId && ids[row] <= highId) {
+                    setBit(eligible, row, true);
+                }
+            }
+        }
+
+        void clear() {
+            Arrays.fill(live, 0);
+            rowsById.clear();
+        }
+
+        long count(int fromRow, int toRow, Boolean eligibility, Integer afterAge) {
+            long count = 0;
+            if (afterAge == null) {
+                // Whole words of 64 rows at a time, as fromRow is always at the start of a word
+                for (int word = fromRow >>> 6; word << 6 < toRow; word++) {
+                    long rows = live[word];
+                    if (eligibility != null) {
+                        rows &= eligibility ? eligible[word] : ~eligible[word];
+                    }
+                    count += Long.bitCount(rows);
+                }
+                return count;
+            }
+
+            for (int row = fromRow; row < toRow; row++) {
+                if (bit(live, row) && ages[row] > afterAge
+                        && (eligibility == null || bit(eligible, row) == eligibility)) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        private int append(long id) {
+            if (size == ids.length) {
+                int capacity = ids.length * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                ages = Arrays.copyOf(ages, capacity);
+                eligible = Arrays.copyOf(eligible, capacity / 64);
+                live = Arrays.copyOf(live, capacity / 64);
+            }
+
+            int row = size++;
+            ids[row] = id;
+            setBit(live, row, true);
+            rowsById.put(id, row);
+            return row;
+        }
+
+        private static boolean bit(long[] bits, int row) {
+            return (bits[row >>> 6] & (1L << row)) != 0;
+        }
+
+        private static void setBit(long[] bits, int row, boolean value) {
+            if (value) {
+                bits[row >>> 6] |= 1L << row;
+            } else {
+                bits[row >>> 6] &= ~(1L << row);
+            }
+        }
+    }
+    /**
+     * Map of ids to rows with linear probing over a pair of primitive arrays, so that a snapshot of millions of
+     * employees does not need a boxed Long, Integer and map entry per row. A slot is free if its row is NO_ROW, as
+     * rows are never negative. The table is kept at most half full.
+     */
+    static final class RowsById {
+
+        static final int NO_ROW = -1;
+
+        private long[] ids;
+        private int[] rows;
+        private int mask;
+        private int size;
+
+        /**
+         * @param capacity initial number of slots, a power of two
+         */
+        RowsById(int capacity) {
+            allocate(capacity);
+        }
+
+        /**
+         * @return the row of the id, or NO_ROW if it has none
+         */
+        int get(long id) {
+            for (int slot = slotOf(id); rows[slot] != NO_ROW; slot = (slot + 1) & mask) {
+                if (ids[slot] == id) {
+                    return rows[slot];
+                }
+            }
+            return NO_ROW;
+        }
+
+        void put(long id, int row) {
+            int slot = slotOf(id);
+            for (; rows[slot] != NO_ROW; slot = (slot + 1) & mask) {
+                if (ids[slot] == id) {
+                    rows[slot] = row;
+                    return;
+                }
+            }
+            ids[slot] = id;
+            rows[slot] = row;
+            if (++size > rows.length / 2) {
+                grow();
+            }
+        }
+
+        /**
+         * @return the row the id had, or NO_ROW if it had none
+         */
+        int remove(long id) {
+            for (int slot = slotOf(id); rows[slot] != NO_ROW; slot = (slot + 1) & mask) {
+                if (ids[slot] == id) {
+                    int row = rows[slot];
+                    shiftBack(slot);
+                    size--;
+                    return row;
+                }
+            }
+            return NO_ROW;
+        }
+
+        void clear() {
+            Arrays.fill(rows, NO_ROW);
+            size = 0;
+        }
+
+        /**
+         * Moves the following entries of the probe sequence back into the freed slot, so that a lookup never
+         * stops at a free slot before reaching its id.
+         */
+        private void shiftBack(int free) {
+            for (int slot = (free + 1) & mask; rows[slot] != NO_ROW; slot = (slot + 1) & mask) {
+                // The entry can only move back if the freed slot lies between its own slot and where it is now
+                if (((slot - slotOf(ids[slot])) & mask) >= ((slot - free) & mask)) {
+                    ids[free] = ids[slot];
+                    rows[free] = rows[slot];
+                    free = slot;
+                }
+            }
+            rows[free] = NO_ROW;
+        }
+
+        private void grow() {
+            long[] oldIds = ids;
+            int[] oldRows = rows;
+            allocate(oldRows.length * 2);
+            for (int slot = 0; slot < oldRows.length; slot++) {
+                if (oldRows[slot] != NO_ROW) {
+                    put(oldIds[slot], oldRows[slot]);
+                }
+            }
+        }
+
+        private void allocate(int capacity) {
+            ids = new long[capacity];
+            rows = new int[capacity];
+            Arrays.fill(rows, NO_ROW);
+            mask = capacity - 1;
+            size = 0;
+        }
+
+        private int slotOf(long id) {
+            // Fibonacci hashing, as sequential ids would otherwise fill runs of neighbouring slots
+            return (int) ((id * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.demo.service;
+
+import com.example.demo.model.AgeCount;
+import com.example.demo.model.EmployeeStats;
+import com.example.demo.repository.EmployeeDAO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * EmployeeStatsService computes EmployeeStats in a single pass over the number of employees per eligibility and
+ * age. Those counts come from AgeIndex once it is built, and from one grouped query on the slave until then, so
+ * no employee is ever loaded. Ages from the query are clamped to the age domain of AgeIndex, so that both give the
+ * same stats.
+ *
+ * Computed stats are cached per bucket width for employee.stats.cache-ttl-millis, which is also the max-age the
+ * response may be cached for by clients.
+ */
+@Service
+public class EmployeeStatsService {
+
+    // Distinct bucket widths whose stats are cached at the same time
+    private static final int MAX_CACHED_WIDTHS = 16;
+
+    private final EmployeeDAO repository;
+    private final AgeIndex ageIndex;
+    private final long cacheTtlMillis;
+    private final Cache<Integer, EmployeeStats> cache;
+
+    @Autowired
+    public EmployeeStatsService(EmployeeDAO repository, AgeIndex ageIndex,
+                                @Value("${employee.stats.cache-ttl-millis}") long cacheTtlMillis) {
+        this.repository = repository;
+        this.ageIndex = ageIndex;
+        this.cacheTtlMillis = cacheTtlMillis;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(MAX_CACHED_WIDTHS)
+                .expireAfterWrite(Duration.ofMillis(cacheTtlMillis))
+                .build();
+    }
+
+    public long getCacheTtlMillis() {
+        return cacheTtlMillis;
+    }
+
+    /**
+     * @param bucketWidth years covered by each bucket of the age histogram. It is bounded to between 1 and one more
+     * than the max age, as any wider bucket holds every employee too, which also keeps bucket bounds within an int.
+     */
+    public EmployeeStats getStats(int bucketWidth) throws DataAccessException {
+        int maxAge = ageIndex.getMaxAge();
+        return cache.get(Math.max(1, Math.min(bucketWidth, maxAge + 1)), width -> {
+            List<AgeCount> counts = ageIndex.getCounts();
+            return compute(counts != null ? counts : repository.countByEligibilityAndAge(), width, maxAge);
+        });
+    }
+
+    /**
+     * @param ageDomainMax ages are clamped to between 0 and ageDomainMax, as in AgeIndex. Registration rejects ages
+     * outside of that, so only rows written to the db directly are ever clamped
+     */
+    static EmployeeStats compute(List<AgeCount> counts, int bucketWidth, int ageDomainMax) {
+        // Indexed by eligibility, 0 for ineligible and 1 for eligible
+        long[] total = new long[2];
+        long[] ageSum = new long[2];
+        int[] minAge = {Integer.MAX_VALUE, Integer.MAX_VALUE};
+        int[] maxAge = {Integer.MIN_VALUE, Integer.MIN_VALUE};
+        TreeMap<Integer, long[]> buckets = new TreeMap<>();
+
+        for (AgeCount count : counts) {
+            int eligibility = count.eligibility() ? 1 : 0;
+            int age = Math.max(0, Math.min(count.age(), ageDomainMax));
+            total[eligibility] += count.count();
+            ageSum[eligibility] += age * count.count();
+            minAge[eligibility] = Math.min(minAge[eligibility], age);
+            maxAge[eligibility] = Math.max(maxAge[eligibility], age);
+            buckets.computeIfAbsent(Math.floorDiv(age, bucketWidth), bucket -> new long[2])[eligibility]
+                    += count.count();
+        }
+
+        List<EmployeeStats.AgeBucket> histogram = new ArrayList<>();
+        if (!buckets.isEmpty()) {
+            for (int bucket = buckets.firstKey(); bucket <= buckets.lastKey(); bucket++) {
+                long[] bucketCounts = buckets.getOrDefault(bucket, new long[2]);
+                histogram.add(new EmployeeStats.AgeBucket(bucket * bucketWidth, (bucket + 1) * bucketWidth,
+                        bucketCounts[1], bucketCounts[0]));
+            }
+        }
+
+        return new EmployeeStats(total[1], total[0], bucketWidth, histogram,
+                summary(total[1], ageSum[1], minAge[1], maxAge[1]),
+                summary(total[0], ageSum[0], minAge[0], maxAge[0]));
+    }
+
+    private static EmployeeStats.AgeSummary summary(long total, long ageSum, int minAge, int maxAge) {
+        if (total == 0) {
+            return new EmployeeStats.AgeSummary(null, null, null);
+        }
+        return new EmployeeStats.AgeSummary(minAge, maxAge, (double) ageSum / total);
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.demo.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * EmployeeTableLoader reloads every registered ReloadedState, such as those of EmployeeSnapshot and
+ * EmployeeBitmapIndex, from a single scan of the Employees table on the master, so that each of them does not
+ * need a full table scan of its own.
+ *
+ * If the scan fails, every state is kept as it is until the next reload.
+ */
+@Service
+public class EmployeeTableLoader {
+
+    private static final String LOAD_QUERY = "SELECT id, first_name, last_name, age, eligibility FROM Employees";
+    private static final int LOAD_FETCH_SIZE = 5000;
+
+    private final JdbcTemplate master;
+    private final List<ReloadedState<?>> states = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    public EmployeeTableLoader(@Qualifier("masterDataSource") DataSource masterDataSource) {
+        this(new JdbcTemplate(masterDataSource));
+        this.master.setFetchSize(LOAD_FETCH_SIZE);
+    }
+
+    EmployeeTableLoader(JdbcTemplate master) {
+        this.master = master;
+    }
+
+    void register(ReloadedState<?> state) {
+        states.add(state);
+    }
+
+    /**
+     * Also loads the states, as the first run is right after startup.
+     */
+    @Scheduled(fixedDelayString = "${employee.table-loader.reload-interval-millis}")
+    public void reload() {
+        if (states.isEmpty()) {
+            return;
+        }
+
+        List<ReloadedState<?>.Reload> reloads = new ArrayList<>(states.size());
+        for (ReloadedState<?> state : states) {
+            reloads.add(state.beginReload());
+        }
+
+        try {
+            master.query(LOAD_QUERY, (RowCallbackHandler) rs -> {
+                long id = rs.getLong(1);
+                String firstName = rs.getString(2);
+                String lastName = rs.getString(3);
+                int age = rs.getInt(4);
+                boolean eligibility = rs.getBoolean(5);
+                for (ReloadedState<?>.Reload reload : reloads) {
+                    reload.load(id, firstName, lastName, age, eligibility);
+                }
+            });
+        } catch (DataAccessException dae) {
+            reloads.forEach(reload -> reload.abandon());
+            return;
+        }
+
+        reloads.forEach(reload -> reload.complete());
+    }
+}
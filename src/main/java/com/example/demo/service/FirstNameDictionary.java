@@ -0,0 +1,163 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Employee;
+import com.example.demo.model.FirstNameCount;
+import com.example.demo.repository.EmployeeDAO;
+import com.example.demo.repository.EmployeeWriteListener;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * FirstNameDictionary keeps the first names of all employees in memory, each with the number of employees that
+ * have it, so that distinct and most common first names can be listed without sorting the table.
+ *
+ * It is built from the master and kept up to date by the writes made through EmployeeDAO. A name is dropped once
+ * no employee has it. Like EligibilityCounter, it is rebuilt on a fixed delay to correct any drift, but a rebuild
+ * is only kept if no write was applied while the names were being counted.
+ */
+@Service
+public class FirstNameDictionary implements EmployeeWriteListener {
+
+    private static final int REBUILD_ATTEMPTS = 3;
+
+    // Most common first, names with the same count in alphabetical order
+    private static final Comparator<FirstNameCount> MOST_COMMON_FIRST =
+            Comparator.comparing(FirstNameCount::count).reversed().thenComparing(FirstNameCount::firstName);
+
+    private final EmployeeDAO repository;
+
+    private volatile Map<String, Long> counts = new ConcurrentHashMap<>();
+    private volatile boolean built;
+    // Writers share the read lock, so that a rebuild can check for and swap in its result without a write between
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicLong changes = new AtomicLong();
+
+    @Autowired
+    public FirstNameDictionary(EmployeeDAO repository) {
+        this.repository = repository;
+    }
+
+    @PostConstruct
+    void register() {
+        repository.addWriteListener(this);
+    }
+
+    /**
+     * @return false until the dictionary has been built from the db
+     */
+    public boolean isBuilt() {
+        return built;
+    }
+
+    public List<String> getDistinctFirstNames() {
+        return new ArrayList<>(counts.keySet());
+    }
+
+    /**
+     * @return the n most common first names, most common first
+     */
+    public List<FirstNameCount> getMostCommon(int n) {
+        // Keep the n most common seen so far in a min-heap, so that only the least common of them is ever replaced
+        PriorityQueue<FirstNameCount> top = new PriorityQueue<>(n + 1, MOST_COMMON_FIRST.reversed());
+        for (Map.Entry<String, Long> entry : counts.entrySet()) {
+            top.add(new FirstNameCount(entry.getKey(), entry.getValue()));
+            if (top.size() > n) {
+                top.poll();
+            }
+        }
+
+        List<FirstNameCount> mostCommon = new ArrayList<>(top);
+        mostCommon.sort(MOST_COMMON_FIRST);
+        return mostCommon;
+    }
+
+    /**
+     * Also builds the dictionary, as the first run is right after startup.
+     */
+    @Scheduled(fixedDelayString = "${employee.counters.reconcile-interval-millis}")
+    public void rebuild() {
+        for (int attempt = 0; attempt < REBUILD_ATTEMPTS; attempt++) {
+            long changesBefore = changes.get();
+
+            Map<String, Long> rebuilt = new ConcurrentHashMap<>();
+            try {
+                for (FirstNameCount count : repository.countByFirstNameInMaster()) {
+                    rebuilt.put(count.firstName(), count.count());
+                }
+            } catch (DataAccessException dae) {
+                // Keep the current dictionary until the next rebuild
+                return;
+            }
+
+            lock.writeLock().lock();
+            try {
+                if (changes.get() == changesBefore) {
+                    counts = rebuilt;
+                    built = true;
+                    return;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private void add(String firstName, long delta) {
+        lock.readLock().lock();
+        try {
+            counts.compute(firstName, (name, count) -> {
+                long updated = (count == null ? 0 : count) + delta;
+                return updated <= 0 ? null : updated;
+            });
+            changes.incrementAndGet();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean needsBeforeImage() {
+        return true;
+    }
+
+    @Override
+    public void onSaved(Employee before, Employee after) {
+        if (before != null) {
+            if (Objects.equals(before.getFirstName(), after.getFirstName())) {
+                return;
+            }
+            add(before.getFirstName(), -1);
+        }
+        add(after.getFirstName(), 1);
+    }
+
+    @Override
+    public void onDeleted(Employee deleted) {
+        add(deleted.getFirstName(), -1);
+    }
+
+    @Override
+    public void onCleared() {
+        lock.writeLock().lock();
+        try {
+            counts = new ConcurrentHashMap<>();
+            changes.incrementAndGet();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
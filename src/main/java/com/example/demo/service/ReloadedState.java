@@ -0,0 +1,138 @@
+package com.example.demo.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * In-memory state built from every row of the Employees table by EmployeeTableLoader, and kept up to date by the
+ * writes made through EmployeeDAO in between reloads.
+ *
+ * Writes made while the state is being reloaded are applied again to the reloaded state before it replaces the
+ * current one, which is safe as every write sets rows to a given state. Writers take the write lock, queries the
+ * read lock. The state itself does not need to be thread safe.
+ *
+ * @param <T> type of the state
+ */
+final class ReloadedState<T> {
+
+    /**
+     * Adds a row of the Employees table to a state being loaded.
+     */
+    @FunctionalInterface
+    interface RowLoader<T> {
+        void load(T state, long id, String firstName, String lastName, int age, boolean eligibility);
+    }
+
+    private final Supplier<T> empty;
+    private final RowLoader<T> rowLoader;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private T current;
+    // Writes made while the state is being reloaded, or null if it is not
+    private List<Consumer<T>> writesDuringReload;
+
+    /**
+     * @param empty creates a new empty state to load rows into
+     */
+    ReloadedState(Supplier<T> empty, RowLoader<T> rowLoader) {
+        this.empty = empty;
+        this.rowLoader = rowLoader;
+    }
+
+    boolean isLoaded() {
+        lock.readLock().lock();
+        try {
+            return current != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the result of the query on the current state, or ifNotLoaded if it has not been loaded yet
+     */
+    <R> R read(Function<T, R> query, R ifNotLoaded) {
+        lock.readLock().lock();
+        try {
+            return current == null ? ifNotLoaded : query.apply(current);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    void write(Consumer<T> write) {
+        lock.writeLock().lock();
+        try {
+            if (current != null) {
+                write.accept(current);
+            }
+            if (writesDuringReload != null) {
+                writesDuringReload.add(write);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Starts recording writes to apply them again to the reloaded state.
+     */
+    Reload beginReload() {
+        lock.writeLock().lock();
+        try {
+            writesDuringReload = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return new Reload(empty.get());
+    }
+
+    /**
+     * A reload in progress, fed the rows of the table one at a time.
+     */
+    final class Reload {
+
+        private final T reloaded;
+
+        private Reload(T reloaded) {
+            this.reloaded = reloaded;
+        }
+
+        void load(long id, String firstName, String lastName, int age, boolean eligibility) {
+            rowLoader.load(reloaded, id, firstName, lastName, age, eligibility);
+        }
+
+        /**
+         * Replaces the current state with the reloaded one, once the writes made meanwhile have been applied to it.
+         */
+        void complete() {
+            lock.writeLock().lock();
+            try {
+                for (Consumer<T> write : writesDuringReload) {
+                    write.accept(reloaded);
+                }
+                current = reloaded;
+                writesDuringReload = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        /**
+         * Keeps the current state until the next reload.
+         */
+        void abandon() {
+            lock.writeLock().lock();
+            try {
+                writesDuringReload = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.demo.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * SingleFlight coalesces identical concurrent reads. The first caller of a query with given arguments runs it, and
+ * every caller of the same query and arguments that arrives while it is in flight waits for and shares its result
+ * instead of running the query again, and holding another pooled connection for it.
+ *
+ * With a linger, a result is also shared with callers arriving up to linger-millis after it completed, which
+ * absorbs the stragglers of a burst at the cost of answering them with a result that old. A failed query is never
+ * shared past the callers already waiting for it.
+ *
+ * Callers sharing another caller's result is exposed as the employee.reads.collapsed counter, tagged by the name
+ * of the query as key but not by its arguments, so that the number of counters stays bounded.
+ */
+@Component
+public class SingleFlight {
+
+    private final boolean enabled;
+    private final long lingerNanos;
+    private final MeterRegistry meterRegistry;
+
+    private final ConcurrentMap<String, Flight> flights = new ConcurrentHashMap<>();
+    // Registered once per query name, as registering looks the meter up in the registry
+    private final ConcurrentMap<String, Counter> collapsed = new ConcurrentHashMap<>();
+
+    @Autowired
+    public SingleFlight(@Value("${employee.coalescing.enabled}") boolean enabled,
+                        @Value("${employee.coalescing.linger-millis}") long lingerMillis,
+                        MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.lingerNanos = lingerMillis * 1_000_000;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Same as execute(String, List, Supplier) for a query without arguments.
+     */
+    public <T> T execute(String name, Supplier<T> query) {
+        return execute(name, List.of(), query);
+    }
+
+    /**
+     * @param name identifies the query, callers with equal names and arguments share results
+     * @return the result of the query, which may be shared with other callers and must not be modified
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String name, List<?> arguments, Supplier<T> query) {
+        if (!enabled) {
+            return query.get();
+        }
+
+        String key = arguments.isEmpty() ? name : name + arguments;
+        while (true) {
+            Flight flight = new Flight();
+            Flight inFlight = flights.putIfAbsent(key, flight);
+            if (inFlight == null) {
+                return (T) lead(key, flight, query);
+            }
+
+            if (inFlight.isExpired(System.nanoTime())) {
+                flights.remove(key, inFlight);
+                continue;
+            }
+
+            collapsed.computeIfAbsent(name, this::collapsedCounter).increment();
+            try {
+                return (T) inFlight.result.join();
+            } catch (CompletionException ce) {
+                throw ce.getCause() instanceof RuntimeException re ? re : ce;
+            }
+        }
+    }
+
+    private Counter collapsedCounter(String name) {
+        return Counter.builder("employee.reads.collapsed")
+                .description("Reads answered with the result of an identical concurrent read")
+                .tag("key", name)
+                .register(meterRegistry);
+    }
+
+    private Object lead(String key, Flight flight, Supplier<?> query) {
+        Object result;
+        try {
+            result = query.get();
+        } catch (RuntimeException re) {
+            flights.remove(key, flight);
+            flight.result.completeExceptionally(re);
+            throw re;
+        }
+
+        flight.completedAtNanos = System.nanoTime();
+        if (lingerNanos <= 0) {
+            flights.remove(key, flight);
+        }
+        flight.result.complete(result);
+        return result;
+    }
+
+    private final class Flight {
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+        private volatile long completedAtNanos;
+
+        boolean isExpired(long nowNanos) {
+            return result.isDone() && nowNanos - completedAtNanos > lingerNanos;
+        }
+    }
+}
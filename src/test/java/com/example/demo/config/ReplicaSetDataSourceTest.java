@@ -0,0 +1,118 @@
+package com.example.demo.config;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReplicaSetDataSourceTest {
+
+    private static Replica replica(String name) throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.isValid(1)).thenReturn(true);
+        return new Replica(name, dataSource);
+    }
+
+    @Test
+    void getConnection_roundRobin_ReplicasTakeTurns() throws SQLException {
+        Replica a = replica("a");
+        Replica b = replica("b");
+        ReplicaSetDataSource dataSource = new ReplicaSetDataSource(List.of(a, b), new RoundRobinBalancer(), 1);
+
+        dataSource.getConnection();
+        dataSource.getConnection();
+
+        assertEquals(1, a.getActiveConnections());
+        assertEquals(1, b.getActiveConnections());
+    }
+
+    @Test
+    void getConnection_leastActive_ReturnedConnectionFreesReplica() throws SQLException {
+        Replica a = replica("a");
+        Replica b = replica("b");
+        ReplicaSetDataSource dataSource = new ReplicaSetDataSource(List.of(a, b), new LeastActiveBalancer(), 1);
+
+        Connection first = dataSource.getConnection();
+        first.close();
+        dataSource.getConnection();
+        dataSource.getConnection();
+
+        assertEquals(1, a.getActiveConnections());
+        assertEquals(1, b.getActiveConnections());
+        assertTrue(a.getLatencyEwmaNanos() > 0);
+    }
+
+    @Test
+    void getConnection_replicaFails_EjectedUntilHealthCheckPasses() throws SQLException {
+        Replica a = replica("a");
+        Replica b = replica("b");
+        when(a.getDataSource().getConnection()).thenThrow(new SQLException("down"));
+        ReplicaSetDataSource dataSource = new ReplicaSetDataSource(List.of(a, b), new RoundRobinBalancer(), 1);
+
+        dataSource.getConnection();
+
+        assertFalse(a.isHealthy());
+        assertEquals(1, b.getActiveConnections());
+
+        Connection connection = mock(Connection.class);
+        when(connection.isValid(1)).thenReturn(true);
+        doReturn(connection).when(a.getDataSource()).getConnection();
+        dataSource.checkHealth();
+
+        assertTrue(a.isHealthy());
+    }
+
+    @Test
+    void getConnection_heldWithoutQueries_IdleTimeNotCountedAsLatency() throws Exception {
+        Replica a = replica("a");
+        ReplicaSetDataSource dataSource = new ReplicaSetDataSource(List.of(a), new EwmaLatencyBalancer(), 1);
+
+        Connection connection = dataSource.getConnection();
+        Thread.sleep(50);
+        connection.close();
+
+        assertTrue(a.getLatencyEwmaNanos() < TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    @Test
+    void getConnection_statementExecuted_ExecutionCountedAsLatency() throws Exception {
+        Replica a = replica("a");
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(a.getDataSource().getConnection().prepareStatement("SELECT 1")).thenReturn(statement);
+        when(statement.executeQuery()).thenAnswer(invocation -> {
+            Thread.sleep(30);
+            return null;
+        });
+        ReplicaSetDataSource dataSource = new ReplicaSetDataSource(List.of(a), new EwmaLatencyBalancer(), 1);
+
+        Connection connection = dataSource.getConnection();
+        connection.prepareStatement("SELECT 1").executeQuery();
+        connection.close();
+
+        assertTrue(a.getLatencyEwmaNanos() >= TimeUnit.MILLISECONDS.toNanos(30));
+    }
+
+    @Test
+    void getConnection_withCredentials_BorrowedFromChosenReplica() throws SQLException {
+        Replica a = replica("a");
+        Connection connection = mock(Connection.class);
+        when(a.getDataSource().getConnection("user", "pass")).thenReturn(connection);
+        ReplicaSetDataSource dataSource = new ReplicaSetDataSource(List.of(a), new RoundRobinBalancer(), 1);
+
+        dataSource.getConnection("user", "pass").close();
+
+        verify(connection).close();
+    }
+}
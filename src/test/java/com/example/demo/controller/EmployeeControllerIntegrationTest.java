@@ -179,6 +179,34 @@ class EmployeeControllerIntegrationTest {
         }
     }
 
+    @Test
+    void streamEmployees_nonEmptyDatabaseAllEmployeesStreamed_Ok() {
+        Employee[] employees = new Employee[3];
+        for (int i = 0; i < employees.length; i++) {
+            employees[i] = new Employee("John", "Wick" + i, 55, false);
+        }
+
+        batchSaveAndFlush(employees);
+
+        waitForReplication(REPLICATION_DELAY);
+
+        ResponseEntity<EmployeesResponse> response = restTemplate.getForEntity(
+                String.format(urlTemplate, port, "get/stream"), EmployeesResponse.class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+
+        EmployeesResponse responseBody = response.getBody();
+
+        assertNotNull(responseBody);
+        assertEquals(EmployeeResponseMessage.GET_ALL_SUCCESS, responseBody.getMsg());
+
+        ArrayList<Employee> streamed = responseBody.getEmployees();
+        assertEquals(employees.length, streamed.size());
+        for (int i = 0; i < streamed.size(); i++) {
+            assertEquals("Wick" + i, streamed.get(i).getLastName());
+        }
+    }
+
     @Test
     void registerEmployee_addSingleEmployeeSingleEmployeeAdded_Ok() throws InvalidEmployeeAgeException {
         Employee employee = new Employee("John", "Wick", 55, false);
@@ -308,7 +336,7 @@ class EmployeeControllerIntegrationTest {
     }
 
     @Test
-    void batchRegisterEmployee_throwDataAccessException_InternalServerError() {
+    void batchRegisterEmployee_throwDataAccessException_InternalServerError() throws InvalidEmployeeAgeException {
         /**
          * For some reason, any() here causes null to passes as the argument.
          * This happens even if eq() is used so idk.
@@ -363,7 +391,7 @@ class EmployeeControllerIntegrationTest {
 
     @Test
     void getDistinctEmployeeFirstNames_throwDataAccessException_InternalServerError() throws InvalidEmployeeAgeException {
-        when(employeeService.findEmployeesWithDistinctFirstName()).thenThrow(new DataAccessException("..."){});
+        when(employeeService.getDistinctFirstNames()).thenThrow(new DataAccessException("..."){});
 
         ResponseEntity<EmployeeNamesResponse> response = restTemplate.getForEntity(
                 String.format(urlTemplate, port, "names"), EmployeeNamesResponse.class);
@@ -440,6 +468,7 @@ class EmployeeControllerIntegrationTest {
         assertEquals(EmployeeResponseMessage.SET_ELIGIBILITY_AFTER_SUCCESS, responseBody.getMsg());
         assertEquals(mid, responseBody.getAfterAge());
         assertTrue(responseBody.getEligibilitySet());
+        assertEquals(size - (mid + 1), responseBody.getUpdatedCount());
 
         // need to flush to commit results to db for testing purposes
         repository.flush();
@@ -515,6 +544,7 @@ class EmployeeControllerIntegrationTest {
         assertEquals(EmployeeResponseMessage.SET_ELIGIBILITY_AFTER_SUCCESS, responseBody.getMsg());
         assertEquals(mid, responseBody.getAfterAge());
         assertTrue(responseBody.getEligibilitySet());
+        assertEquals(size - (mid + 1), responseBody.getUpdatedCount());
 
         repository.flush();
 
@@ -0,0 +1,108 @@
+package com.example.demo.controller;
+
+import com.example.demo.controller.response.CountEligibleResponse;
+import com.example.demo.controller.response.EmployeeRecordsResponse;
+import com.example.demo.controller.response.EmployeeResponseMessage;
+import com.example.demo.controller.response.ProjectedEmployeesResponse;
+import com.example.demo.model.EmployeeRecord;
+import com.example.demo.model.Versioned;
+import com.example.demo.service.EligibilityJobService;
+import com.example.demo.service.EmployeeIngestionService;
+import com.example.demo.service.EmployeeService;
+import com.example.demo.service.EmployeeStatsService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Calls EmployeeController directly with a mocked EmployeeService, for the conditional GETs of the read endpoints.
+ */
+class EmployeeControllerUnitTest {
+
+    private static final String VERSION = "employees-7";
+    private static final String ETAG = "\"employees-7\"";
+
+    @Mock
+    private EmployeeService service;
+
+    @Mock
+    private EligibilityJobService jobService;
+
+    @Mock
+    private EmployeeIngestionService ingestionService;
+
+    @Mock
+    private EmployeeStatsService statsService;
+
+    private EmployeeController controller;
+
+    @BeforeEach
+    void initMocks() {
+        MockitoAnnotations.openMocks(this);
+        controller = new EmployeeController(service, jobService, ingestionService, statsService, new ObjectMapper(),
+                100);
+        when(service.getEmployeesVersion()).thenReturn(VERSION);
+        when(service.getEmployees()).thenReturn(new Versioned<>(VERSION,
+                new ArrayList<>(List.of(new EmployeeRecord(1L, "John", "Wick", 55, false)))));
+    }
+
+    @Test
+    void getEmployees_ifNoneMatchCurrentETag_NotModifiedWithoutBody() {
+        ResponseEntity<EmployeeRecordsResponse> response = controller.getEmployees(ETAG);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertEquals(ETAG, response.getHeaders().getETag());
+        assertNull(response.getBody());
+        verify(service, never()).getEmployees();
+    }
+
+    @Test
+    void getEmployees_ifNoneMatchOlderETag_OkWithCurrentETag() {
+        ResponseEntity<EmployeeRecordsResponse> response = controller.getEmployees("\"employees-6\"");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(ETAG, response.getHeaders().getETag());
+        assertEquals(1, response.getBody().getEmployees().size());
+    }
+
+    @Test
+    void getEmployees_ifNoneMatchAny_NotModified() {
+        assertEquals(HttpStatus.NOT_MODIFIED, controller.getEmployees("*").getStatusCode());
+    }
+
+    @Test
+    void getEmployees_ifNoneMatchListWithWeakCurrentETag_NotModified() {
+        ResponseEntity<EmployeeRecordsResponse> response =
+                controller.getEmployees("\"employees-5\", W/\"employees-7\"");
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+    }
+
+    @Test
+    void getEligible_ifNoneMatchCurrentETag_NotModifiedWithoutCounting() {
+        ResponseEntity<CountEligibleResponse> response = controller.getEligible(ETAG);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        verify(service, never()).countEligible();
+    }
+
+    @Test
+    void getEmployeeFields_invalidFieldsWithCurrentETag_BadRequest() {
+        ResponseEntity<ProjectedEmployeesResponse> response = controller.getEmployeeFields("id,salary", ETAG);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals(EmployeeResponseMessage.INVALID_FIELDS, response.getBody().getMsg());
+    }
+}
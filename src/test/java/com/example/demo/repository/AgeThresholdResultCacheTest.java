@@ -0,0 +1,52 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.EmployeeRecord;
+import com.example.demo.model.Versioned;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AgeThresholdResultCacheTest {
+
+    private static final EmployeeRecord YOUNG = new EmployeeRecord(1L, "John", "Wick", 31, false);
+    private static final EmployeeRecord OLD = new EmployeeRecord(2L, "Jane", "Tan", 50, false);
+
+    private final AgeThresholdResultCache cache = new AgeThresholdResultCache(true, 100, new SimpleMeterRegistry());
+
+    @Test
+    void get_higherThresholdAtSameVersion_SlicedFromLowerThreshold() {
+        cache.put(false, 30, new Versioned<>("employees-7", List.of(YOUNG, OLD)));
+
+        assertEquals(List.of(YOUNG, OLD), cache.get(false, 30, "employees-7"));
+        assertEquals(List.of(OLD), cache.get(false, 40, "employees-7"));
+        assertEquals(List.of(), cache.get(false, 50, "employees-7"));
+    }
+
+    @Test
+    void get_tableVersionChanged_Miss() {
+        cache.put(false, 30, new Versioned<>("employees-7", List.of(YOUNG, OLD)));
+
+        assertNull(cache.get(false, 40, "employees-8"));
+    }
+
+    @Test
+    void get_lowerThresholdOrOtherEligibility_Miss() {
+        cache.put(false, 30, new Versioned<>("employees-7", List.of(YOUNG, OLD)));
+
+        assertNull(cache.get(false, 20, "employees-7"));
+        assertNull(cache.get(true, 40, "employees-7"));
+    }
+
+    @Test
+    void put_unknownVersionOrTooManyRows_NotCached() {
+        AgeThresholdResultCache small = new AgeThresholdResultCache(true, 1, new SimpleMeterRegistry());
+        small.put(false, 30, new Versioned<>("employees-7", List.of(YOUNG, OLD)));
+        cache.put(false, 30, new Versioned<>(null, List.of(YOUNG, OLD)));
+
+        assertNull(small.get(false, 30, "employees-7"));
+        assertNull(cache.get(false, 30, null));
+    }
+}
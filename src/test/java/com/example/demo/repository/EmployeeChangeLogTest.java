@@ -0,0 +1,86 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.EmployeeChanges;
+import com.example.demo.model.EmployeeRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class EmployeeChangeLogTest {
+
+    @Mock
+    private JdbcTemplate master;
+
+    private EmployeeChangeLog changeLog;
+
+    @BeforeEach
+    void setUp() {
+        changeLog = new EmployeeChangeLog(master);
+        when(master.queryForObject(anyString(), eq(Long.class))).thenReturn(100L);
+    }
+
+    /**
+     * Feeds the changes to the row handler of the changes query, as (id, version, deleted) triples.
+     */
+    private void givenChanges(long[]... changes) {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (long[] change : changes) {
+                handler.processRow(row(change[0], change[1], change[2] == 1));
+            }
+            return null;
+        }).when(master).query(anyString(), any(RowCallbackHandler.class), any(), any(), any(), any(), any());
+    }
+
+    private static ResultSet row(long id, long version, boolean deleted) throws SQLException {
+        // Lenient, as rows beyond the limit are not read
+        ResultSet rs = mock(ResultSet.class);
+        lenient().when(rs.getLong(1)).thenReturn(id);
+        lenient().when(rs.getLong(6)).thenReturn(version);
+        lenient().when(rs.getBoolean(7)).thenReturn(deleted);
+        return rs;
+    }
+
+    @Test
+    void findChangesSince_fewerChangesThanLimit_SplitsUpdatesAndTombstonesUpToBound() {
+        givenChanges(new long[]{1, 10, 0}, new long[]{2, 11, 1}, new long[]{3, 12, 0});
+
+        EmployeeChanges changes = changeLog.findChangesSince(5, 10);
+
+        assertEquals(List.of(1L, 3L), changes.updated().stream().map(EmployeeRecord::id).toList());
+        assertEquals(List.of(2L), changes.deleted());
+        assertFalse(changes.hasMore());
+        // Every change below the bound of 100 has been seen
+        assertEquals(99, changes.nextToken());
+    }
+
+    @Test
+    void findChangesSince_moreChangesThanLimit_ContinuesFromLastListedChange() {
+        givenChanges(new long[]{1, 10, 0}, new long[]{2, 11, 1}, new long[]{3, 12, 0});
+
+        EmployeeChanges changes = changeLog.findChangesSince(5, 2);
+
+        assertEquals(List.of(1L), changes.updated().stream().map(EmployeeRecord::id).toList());
+        assertEquals(List.of(2L), changes.deleted());
+        assertTrue(changes.hasMore());
+        assertEquals(11, changes.nextToken());
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.BatchSaveResult;
+import com.example.demo.model.Employee;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class EmployeeChunkedBatchSaverTest {
+
+    @Mock
+    private EmployeeDAO repository;
+
+    private ThreadPoolTaskExecutor executor;
+    private EmployeeChunkedBatchSaver saver;
+
+    @BeforeEach
+    void setUp() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.initialize();
+        saver = new EmployeeChunkedBatchSaver(repository, executor, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void saveAll_oneChunkFails_OtherChunksSavedAndFailedRangeReported() {
+        List<Employee> employees = new ArrayList<>();
+        for (String firstName : List.of("A", "B", "C", "D", "E")) {
+            employees.add(new Employee(firstName, "Wick", 55, false));
+        }
+        when(repository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Employee> chunk = invocation.getArgument(0);
+            if (chunk.get(0).getFirstName().equals("C")) {
+                throw new DataIntegrityViolationException("C");
+            }
+            return chunk;
+        });
+
+        BatchSaveResult result = saver.saveAll(employees);
+
+        verify(repository, times(3)).saveAll(anyList());
+        assertEquals(3, result.savedCount());
+        assertEquals(2, result.failedCount());
+        assertEquals(List.of(0, 2, 4), result.chunks().stream().map(BatchSaveResult.Chunk::fromIndex).toList());
+        assertEquals(List.of(true, false, true), result.chunks().stream().map(BatchSaveResult.Chunk::saved).toList());
+
+        BatchSaveResult.Chunk failed = result.chunks().get(1);
+        assertEquals(4, failed.toIndex());
+        assertNull(failed.employees());
+        assertEquals("DataIntegrityViolationException", failed.error());
+        assertEquals(employees.subList(4, 5), result.chunks().get(2).employees());
+    }
+}
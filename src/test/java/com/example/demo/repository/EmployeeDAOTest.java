@@ -0,0 +1,216 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.Employee;
+import com.example.demo.model.EmployeeRecord;
+import com.example.demo.model.Versioned;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EmployeeDAOTest {
+
+    @Mock
+    private EmployeeMasterRepository masterRepository;
+
+    @Mock
+    private EmployeeSlaveRepository slaveRepository;
+
+    @Mock
+    private EntityManagerFactory slaveEntityManagerFactory;
+
+    @Mock
+    private PlatformTransactionManager slaveTransactionManager;
+
+    @Mock
+    private ReplicationLagMonitor lagMonitor;
+
+    @Mock
+    private HedgedReader hedgedReader;
+
+    @Mock
+    private DataSource masterDataSource;
+
+    @Mock
+    private DataSource slaveDataSource;
+
+    private EmployeeDAO dao;
+
+    @BeforeEach
+    void initMocks() {
+        MockitoAnnotations.openMocks(this);
+        dao = new EmployeeDAO(masterRepository, slaveRepository, slaveEntityManagerFactory, slaveTransactionManager,
+                lagMonitor, 1, new SimpleMeterRegistry(), hedgedReader,
+                new EmployeeNearCache(100, 60000, new String[]{"findById"}, new SimpleMeterRegistry()),
+                new AgeThresholdResultCache(true, 100, new SimpleMeterRegistry()), masterDataSource, slaveDataSource);
+    }
+
+    @AfterEach
+    void endContext() {
+        ConsistencyContext.end();
+    }
+
+    @Test
+    void count_slaveNotLagging_ReadFromSlave() {
+        when(slaveRepository.count()).thenReturn(3L);
+
+        assertEquals(3L, dao.count());
+        verify(masterRepository, never()).count();
+    }
+
+    @Test
+    void count_slaveLagging_ReadFromMaster() {
+        when(lagMonitor.isLagging()).thenReturn(true);
+        when(masterRepository.count()).thenReturn(4L);
+
+        assertEquals(4L, dao.count());
+        verify(slaveRepository, never()).count();
+    }
+
+    @Test
+    void findAllRecords_slaveNotLagging_HedgedRead() {
+        Versioned<List<EmployeeRecord>> records = new Versioned<>("employees-0-0-0", List.of());
+        when(hedgedReader.read(eq("findAllRecords"), any(), any())).thenReturn(records);
+
+        assertSame(records, dao.findAllRecords());
+    }
+
+    @Test
+    void count_afterWriteSlaveNotCaughtUp_ReadFromMaster() {
+        Employee employee = new Employee("John", "Wick", 55, false);
+        when(masterRepository.save(employee)).thenReturn(employee);
+        when(lagMonitor.nextToken()).thenReturn(7L);
+        when(lagMonitor.isCaughtUpTo(7L)).thenReturn(false);
+
+        ConsistencyContext.begin(ConsistencyContext.NO_TOKEN);
+        dao.save(employee);
+        dao.count();
+
+        assertEquals(7L, ConsistencyContext.getToken());
+        verify(masterRepository).count();
+        verify(slaveRepository, never()).count();
+    }
+
+    @Test
+    void save_inOuterTransaction_TokenIssuedAfterCommit() {
+        Employee employee = new Employee("John", "Wick", 55, false);
+        when(masterRepository.save(employee)).thenReturn(employee);
+        when(lagMonitor.nextToken()).thenReturn(7L);
+
+        ConsistencyContext.begin(ConsistencyContext.NO_TOKEN);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            dao.save(employee);
+            assertEquals(ConsistencyContext.NO_TOKEN, ConsistencyContext.getToken());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertEquals(7L, ConsistencyContext.getToken());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void count_tokenPresentedSlaveCaughtUp_ReadFromSlave() {
+        when(lagMonitor.isCaughtUpTo(7L)).thenReturn(true);
+
+        ConsistencyContext.begin(7L);
+        dao.count();
+
+        verify(slaveRepository).count();
+        verify(masterRepository, never()).count();
+    }
+
+    @Test
+    void updateEmployeeEligibility_withListener_SavedWithPriorState() {
+        Employee prior = new Employee(1L, "John", "Wick", 55, false);
+        when(masterRepository.findAllById(List.of(1L))).thenReturn(List.of(prior));
+        List<Employee[]> saved = new ArrayList<>();
+        dao.addWriteListener(new EmployeeWriteListener() {
+            @Override
+            public boolean needsBeforeImage() {
+                return true;
+            }
+
+            @Override
+            public void onSaved(Employee before, Employee after) {
+                saved.add(new Employee[]{before, after});
+            }
+        });
+
+        dao.updateEmployeeEligibility(1L, true);
+
+        assertEquals(1, saved.size());
+        assertFalse(saved.get(0)[0].isEligibility());
+        assertTrue(saved.get(0)[1].isEligibility());
+    }
+
+    @Test
+    void deleteById_noListenerNeedsBeforeImage_NotifiedByIdWithoutReadingMaster() {
+        List<Long> changed = new ArrayList<>();
+        dao.addWriteListener(new EmployeeWriteListener() {
+            @Override
+            public void onChanged(Long id) {
+                changed.add(id);
+            }
+        });
+
+        dao.deleteById(1L);
+
+        assertEquals(List.of(1L), changed);
+        verify(masterRepository, never()).findAllById(List.of(1L));
+    }
+
+    @Test
+    void findById_cachedUntilSaved_SlaveReadOncePerWrite() {
+        Employee employee = new Employee(1L, "John", "Wick", 55, false);
+        when(slaveRepository.findById(1L)).thenReturn(Optional.of(employee));
+        when(masterRepository.save(employee)).thenReturn(employee);
+        when(lagMonitor.nextToken()).thenReturn(7L);
+        when(lagMonitor.isCaughtUpTo(anyLong())).thenReturn(true);
+
+        dao.findById(1L);
+        dao.findById(1L);
+        dao.save(employee);
+        dao.findById(1L);
+        dao.findById(1L);
+
+        verify(slaveRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    void findById_afterSaveSlaveNotCaughtUp_NotCached() {
+        Employee employee = new Employee(1L, "John", "Wick", 55, false);
+        when(slaveRepository.findById(1L)).thenReturn(Optional.of(employee));
+        when(masterRepository.save(employee)).thenReturn(employee);
+        when(lagMonitor.nextToken()).thenReturn(7L);
+        when(lagMonitor.isCaughtUpTo(anyLong())).thenReturn(true);
+        when(lagMonitor.isCaughtUpTo(7L)).thenReturn(false);
+
+        dao.save(employee);
+        dao.findById(1L);
+        dao.findById(1L);
+
+        verify(slaveRepository, times(2)).findById(1L);
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.Employee;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class EmployeeGroupCommitterTest {
+
+    @Mock
+    private EmployeeDAO repository;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService callers = Executors.newFixedThreadPool(3);
+    private EmployeeGroupCommitter committer;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        callers.shutdownNow();
+        committer.stop();
+    }
+
+    /**
+     * Lingers far longer than the test, so that only a full batch of 3 is flushed.
+     */
+    private void startCommitter() {
+        committer = new EmployeeGroupCommitter(repository, true, 60000, 3, 10000, meterRegistry);
+        committer.start();
+    }
+
+    private List<Future<Employee>> saveConcurrently(String... firstNames) {
+        List<Future<Employee>> saved = new ArrayList<>();
+        for (String firstName : firstNames) {
+            saved.add(callers.submit(() -> committer.save(new Employee(firstName, "Wick", 55, false))));
+        }
+        return saved;
+    }
+
+    private static Employee withId(Employee employee, long id) {
+        return new Employee(id, employee.getFirstName(), employee.getLastName(), employee.getAge(),
+                employee.isEligibility());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void save_concurrentCallers_SavedInOneBatchWithTheirOwnIds() throws Exception {
+        when(repository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Employee> employees = invocation.getArgument(0);
+            List<Employee> saved = new ArrayList<>();
+            for (Employee employee : employees) {
+                saved.add(withId(employee, employee.getFirstName().charAt(0)));
+            }
+            return saved;
+        });
+        startCommitter();
+
+        List<Future<Employee>> saved = saveConcurrently("A", "B", "C");
+
+        for (Future<Employee> employee : saved) {
+            Employee result = employee.get();
+            assertEquals((long) result.getFirstName().charAt(0), result.getId());
+        }
+        verify(repository, times(1)).saveAll(anyList());
+        verify(repository, never()).save(any(Employee.class));
+        assertEquals(1, meterRegistry.get("employee.group-commit.batch-size").summary().count());
+        assertEquals(3, meterRegistry.get("employee.group-commit.latency").timer().count());
+    }
+
+    @Test
+    void save_failedBatch_OnlyFailsCallerOfInvalidEmployee() throws Exception {
+        when(repository.saveAll(anyList())).thenThrow(new DataIntegrityViolationException("batch"));
+        when(repository.save(any(Employee.class))).thenAnswer(invocation -> {
+            Employee employee = invocation.getArgument(0);
+            if (employee.getFirstName().equals("B")) {
+                throw new DataIntegrityViolationException("B");
+            }
+            return withId(employee, 1);
+        });
+        startCommitter();
+
+        List<Future<Employee>> saved = saveConcurrently("A", "B", "C");
+
+        assertEquals("A", saved.get(0).get().getFirstName());
+        ExecutionException failed = assertThrows(ExecutionException.class, () -> saved.get(1).get());
+        assertInstanceOf(DataIntegrityViolationException.class, failed.getCause());
+        assertEquals("C", saved.get(2).get().getFirstName());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void save_batchFailsAfterSaveAll_CallersFailAndNextBatchSaved() throws Exception {
+        // The first batch gets back fewer employees than it saved, which fails it after saveAll
+        when(repository.saveAll(anyList())).thenReturn(List.of()).thenAnswer(invocation -> {
+            List<Employee> employees = invocation.getArgument(0);
+            List<Employee> saved = new ArrayList<>();
+            for (Employee employee : employees) {
+                saved.add(withId(employee, 1));
+            }
+            return saved;
+        });
+        startCommitter();
+
+        for (Future<Employee> failed : saveConcurrently("A", "B", "C")) {
+            ExecutionException thrown = assertThrows(ExecutionException.class, () -> failed.get());
+            assertInstanceOf(IndexOutOfBoundsException.class, thrown.getCause());
+        }
+        for (Future<Employee> employee : saveConcurrently("D", "E", "F")) {
+            assertEquals(1L, employee.get().getId());
+        }
+    }
+}
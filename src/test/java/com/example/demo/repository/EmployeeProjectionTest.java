@@ -0,0 +1,45 @@
+package com.example.demo.repository;
+
+import com.example.demo.exception.InvalidFieldsException;
+import com.example.demo.model.EmployeeField;
+import com.example.demo.model.ProjectedEmployees;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.sql.ResultSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class EmployeeProjectionTest {
+
+    @Test
+    void of_fieldsInAnyOrder_SelectsOnlyTheirColumnsInDeclarationOrder() throws InvalidFieldsException {
+        EmployeeProjection projection = EmployeeProjection.of(EmployeeField.parse("eligibility, id"));
+
+        assertEquals("SELECT id, eligibility FROM Employees", projection.getFindAllQuery());
+        assertSame(projection, EmployeeProjection.of(EmployeeField.parse("id,eligibility")));
+    }
+
+    @Test
+    void parse_unknownOrNoField_ThrowsInvalidFields() {
+        assertThrows(InvalidFieldsException.class, () -> EmployeeField.parse("id,salary"));
+        assertThrows(InvalidFieldsException.class, () -> EmployeeField.parse(" , "));
+    }
+
+    @Test
+    void rowMapper_projectedRow_SerializedWithOnlyItsFields() throws Exception {
+        EmployeeProjection projection = EmployeeProjection.of(EmployeeField.parse("id,eligibility"));
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong(1)).thenReturn(7L);
+        when(rs.getBoolean(2)).thenReturn(true);
+
+        Object[] row = projection.getRowMapper().mapRow(rs, 0);
+        String json = new ObjectMapper().writeValueAsString(new ProjectedEmployees(projection.getFields(),
+                List.<Object[]>of(row)));
+
+        assertEquals("[{\"id\":7,\"eligibility\":true}]", json);
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.demo.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the bytes allocated per row by reading every employee from the slave as managed Employee entities
+ * (findAll of EmployeeSlaveRepository) and as EmployeeRecords (findAllRecords of EmployeeDAO), and fails if
+ * records do not allocate less than entities.
+ *
+ * Like the integration tests, it needs the master and slave dbs, ideally with at least a few thousand employees.
+ * It is not picked up by a plain "mvn test", run it with:
+ * mvn test -Dtest=EmployeeReadAllocationBenchmark
+ */
+@SpringBootTest
+class EmployeeReadAllocationBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASURED_ITERATIONS = 20;
+
+    @Autowired
+    private EmployeeSlaveRepository slaveRepository;
+
+    @Autowired
+    private EmployeeDAO repository;
+
+    @Test
+    void findAll_entitiesVersusRecords_AllocationPerRow() {
+        double entityBytesPerRow = bytesPerRow(() -> slaveRepository.findAll());
+        double recordBytesPerRow = bytesPerRow(() -> repository.findAllRecords().value());
+
+        System.out.printf("Employee entities: %.0f bytes/row%n", entityBytesPerRow);
+        System.out.printf("EmployeeRecords:   %.0f bytes/row%n", recordBytesPerRow);
+        System.out.printf("Ratio:             %.2fx%n", entityBytesPerRow / recordBytesPerRow);
+        assertTrue(recordBytesPerRow < entityBytesPerRow, "Reading EmployeeRecords allocates no less than entities");
+    }
+
+    /**
+     * @return bytes allocated by this thread per row read, averaged over MEASURED_ITERATIONS after warming up
+     */
+    private static double bytesPerRow(Supplier<List<?>> read) {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        int rows = 0;
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            rows = read.get().size();
+        }
+        assertTrue(rows > 0, "The slave has no employees to read");
+
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            read.get();
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+        return (double) allocated / ((long) rows * MEASURED_ITERATIONS);
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.demo.repository;
+
+import com.example.demo.config.ReplicaSetDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class HedgedReaderTest {
+
+    private ExecutorService executor;
+
+    private final ReplicaSetDataSource slave = mock(ReplicaSetDataSource.class);
+
+    @BeforeEach
+    void startExecutor() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    void stopExecutor() {
+        executor.shutdownNow();
+    }
+
+    private HedgedReader hedgedReader(double budgetRatio) {
+        return new HedgedReader(slave, executor, true, 95, budgetRatio, new SimpleMeterRegistry());
+    }
+
+    private static void warmUp(HedgedReader reader) {
+        for (int i = 0; i < 100; i++) {
+            reader.read("count", () -> 1L, () -> 1L);
+        }
+    }
+
+    @Test
+    void read_slowSlave_AnsweredByHedgeToMaster() throws InterruptedException {
+        HedgedReader reader = hedgedReader(1);
+        warmUp(reader);
+        CountDownLatch release = new CountDownLatch(1);
+
+        long count = reader.read("count", () -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+            return 1L;
+        }, () -> 2L);
+
+        release.countDown();
+        assertEquals(2L, count);
+    }
+
+    @Test
+    void read_noBudget_WaitsForSlave() {
+        HedgedReader reader = hedgedReader(0);
+        warmUp(reader);
+
+        long count = reader.read("count", () -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+            return 1L;
+        }, () -> 2L);
+
+        assertEquals(1L, count);
+    }
+}
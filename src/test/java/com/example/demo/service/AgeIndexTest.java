@@ -0,0 +1,79 @@
+package com.example.demo.service;
+
+import com.example.demo.model.AgeCount;
+import com.example.demo.model.Employee;
+import com.example.demo.repository.EmployeeDAO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+class AgeIndexTest {
+
+    @Mock
+    private EmployeeDAO repository;
+
+    private AgeIndex index;
+
+    @BeforeEach
+    void initMocks() {
+        MockitoAnnotations.openMocks(this);
+        index = new AgeIndex(repository, 100);
+        when(repository.countByEligibilityAndAgeInMaster()).thenReturn(List.of(
+                new AgeCount(false, 20, 2L), new AgeCount(false, 40, 3L), new AgeCount(true, 60, 5L),
+                new AgeCount(false, 120, 1L)));
+        index.rebuild();
+    }
+
+    @Test
+    void countInRange_built_CountsAgesAboveOlderThanUpToUpTo() {
+        assertEquals(5, index.countInRange(false, 19, 40));
+        assertEquals(3, index.countInRange(false, 20, 40));
+        assertEquals(8, index.countInRange(null, 30, 60));
+        assertEquals(11, index.countInRange(null, -1, Integer.MAX_VALUE));
+    }
+
+    @Test
+    void ageAtPercentile_built_NearestRank() {
+        assertEquals(20, index.ageAtPercentile(false, 33));
+        assertEquals(40, index.ageAtPercentile(false, 50));
+        assertEquals(60, index.ageAtPercentile(null, 60));
+        assertEquals(100, index.ageAtPercentile(null, 100));
+        assertEquals(-1, new AgeHistogram(100).ageAtPercentile(true, 50));
+    }
+
+    @Test
+    void writes_savedAndGrantedForWholeTable_AppliedToIndex() {
+        index.onSaved(new Employee(1L, "John", "Wick", 20, false), new Employee(1L, "John", "Wick", 21, false));
+        index.onEligibilityGranted(30, Long.MIN_VALUE, Long.MAX_VALUE, 4, null);
+
+        assertEquals(1, index.countInRange(false, 20, 21));
+        assertEquals(0, index.countInRange(false, 30, 100));
+        assertEquals(9, index.countInRange(true, -1, 100));
+    }
+
+    @Test
+    void writes_grantedForIdRangeByAge_AppliedToIndex() {
+        index.onEligibilityGranted(30, 1, 10, 3, Map.of(40, 2, 120, 1));
+
+        assertTrue(index.isBuilt());
+        assertEquals(1, index.countInRange(false, 30, 100));
+        assertEquals(8, index.countInRange(true, -1, 100));
+    }
+
+    @Test
+    void writes_grantedForIdRangeWithoutAges_StaleUntilRebuilt() {
+        index.onEligibilityGranted(30, 1, 10, 2, null);
+
+        assertFalse(index.isBuilt());
+        assertEquals(-1, index.countInRange(false, 30, 100));
+        index.rebuild();
+        assertTrue(index.isBuilt());
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Employee;
+import com.example.demo.repository.EmployeeDAO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+class EligibilityCounterTest {
+
+    @Mock
+    private EmployeeDAO repository;
+
+    private EligibilityCounter counter;
+
+    @BeforeEach
+    void initMocks() {
+        MockitoAnnotations.openMocks(this);
+        counter = new EligibilityCounter(repository);
+        when(repository.countByEligibilityInMaster(true)).thenReturn(10L);
+        when(repository.countByEligibilityInMaster(false)).thenReturn(20L);
+    }
+
+    @Test
+    void reconcile_seedsCountsFromMaster() {
+        assertFalse(counter.isSeeded());
+
+        counter.reconcile();
+
+        assertTrue(counter.isSeeded());
+        assertEquals(10, counter.getEligibleCount());
+        assertEquals(20, counter.getIneligibleCount());
+    }
+
+    @Test
+    void writes_afterSeeding_CountsUpdated() {
+        counter.reconcile();
+
+        counter.onSaved(null, new Employee(1L, "John", "Wick", 55, true));
+        counter.onSaved(new Employee(2L, "John", "Wick", 55, false), new Employee(2L, "John", "Wick", 55, true));
+        counter.onDeleted(new Employee(3L, "John", "Wick", 55, false));
+        counter.onEligibilityGranted(30, 1, 100, 5, null);
+
+        assertEquals(17, counter.getEligibleCount());
+        assertEquals(13, counter.getIneligibleCount());
+    }
+
+    @Test
+    void reconcile_afterDrift_CountsCorrected() {
+        counter.reconcile();
+        counter.onSaved(null, new Employee(1L, "John", "Wick", 55, true));
+
+        // The db did not see that write, e.g. because it was rolled back outside the DAO
+        counter.reconcile();
+
+        assertEquals(10, counter.getEligibleCount());
+    }
+}
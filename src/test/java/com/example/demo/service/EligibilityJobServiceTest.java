@@ -0,0 +1,132 @@
+package com.example.demo.service;
+
+import com.example.demo.model.EligibilityJob;
+import com.example.demo.repository.EligibilityJobRepository;
+import com.example.demo.repository.EmployeeDAO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The executor is replaced with one that runs jobs on the calling thread, so that a submitted job has finished
+ * by the time submit returns.
+ */
+class EligibilityJobServiceTest {
+
+    @Mock
+    private EligibilityJobRepository jobRepository;
+
+    @Mock
+    private EmployeeDAO employeeRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private EligibilityJobService service;
+
+    private final AtomicReference<EligibilityJob> savedJob = new AtomicReference<>();
+
+    @BeforeEach
+    void initMocks() {
+        MockitoAnnotations.openMocks(this);
+        service = new EligibilityJobService(jobRepository, employeeRepository, Runnable::run, transactionManager, 10,
+                60000);
+
+        when(jobRepository.save(ArgumentMatchers.any(EligibilityJob.class))).thenAnswer(invocation -> {
+            EligibilityJob job = invocation.getArgument(0);
+            if (job.getId() == null) {
+                ReflectionTestUtils.setField(job, "id", 1L);
+            }
+            savedJob.set(job);
+            return invocation.getArgument(0);
+        });
+        when(jobRepository.findById(ArgumentMatchers.any())).thenAnswer(invocation ->
+                Optional.ofNullable(savedJob.get()));
+    }
+
+    @Test
+    void submit_idRangeOfTwoChunks_CompletedWithCheckpointPerChunk() {
+        when(employeeRepository.findIneligibleIdRange(30)).thenReturn(new long[]{1, 15});
+        when(employeeRepository.addEligibilityAfterAgeInIdRange(eq(30), anyLong(), anyLong())).thenReturn(4);
+
+        service.submit(30);
+
+        EligibilityJob job = savedJob.get();
+        assertEquals(EligibilityJob.Status.COMPLETED, job.getStatus());
+        assertEquals(15L, job.getCheckpointId());
+        assertEquals(8, job.getRowsProcessed());
+        assertEquals(1.0, job.getProgress());
+        verify(employeeRepository).addEligibilityAfterAgeInIdRange(30, 1, 10);
+        verify(employeeRepository).addEligibilityAfterAgeInIdRange(30, 11, 15);
+    }
+
+    @Test
+    void submit_noIneligibleEmployees_CompletedWithoutUpdates() {
+        when(employeeRepository.findIneligibleIdRange(30)).thenReturn(null);
+
+        service.submit(30);
+
+        EligibilityJob job = savedJob.get();
+        assertEquals(EligibilityJob.Status.COMPLETED, job.getStatus());
+        assertEquals(0, job.getRowsProcessed());
+    }
+
+    @Test
+    void resumeUnfinishedJobs_claimedByAnotherNode_NotRun() {
+        EligibilityJob job = new EligibilityJob(30, 10, "other-node");
+        ReflectionTestUtils.setField(job, "id", 1L);
+        savedJob.set(job);
+        when(jobRepository.findByStatusIn(ArgumentMatchers.any())).thenReturn(List.of(job));
+        when(jobRepository.claim(any(), any(), any(), any(), any())).thenReturn(0);
+
+        service.resumeUnfinishedJobs();
+
+        verify(employeeRepository, never()).findIneligibleIdRange(any());
+        assertEquals(EligibilityJob.Status.PENDING, job.getStatus());
+    }
+
+    @Test
+    void resumeUnfinishedJobs_jobQueueFull_LeftForNextSweep() {
+        EligibilityJobService rejecting = new EligibilityJobService(jobRepository, employeeRepository,
+                task -> {
+                    throw new TaskRejectedException("full");
+                }, transactionManager, 10, 60000);
+        EligibilityJob job = new EligibilityJob(30, 10, "other-node");
+        ReflectionTestUtils.setField(job, "id", 1L);
+        when(jobRepository.findByStatusIn(ArgumentMatchers.any())).thenReturn(List.of(job));
+        when(jobRepository.claim(any(), any(), any(), any(), any())).thenReturn(1);
+
+        assertDoesNotThrow(rejecting::resumeUnfinishedJobs);
+        assertEquals(EligibilityJob.Status.PENDING, job.getStatus());
+    }
+
+    @Test
+    void submit_chunkThrows_Failed() {
+        when(employeeRepository.findIneligibleIdRange(30)).thenReturn(new long[]{1, 15});
+        when(employeeRepository.addEligibilityAfterAgeInIdRange(eq(30), anyLong(), anyLong()))
+                .thenThrow(new IllegalStateException("boom"));
+
+        service.submit(30);
+
+        EligibilityJob job = savedJob.get();
+        assertEquals(EligibilityJob.Status.FAILED, job.getStatus());
+        assertEquals("boom", job.getError());
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Employee;
+import com.example.demo.model.EmployeeFilter;
+import com.example.demo.repository.EmployeeDAO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class EmployeeBitmapIndexTest {
+
+    private static final String[] LAST_NAMES = {"Tan", "Teo", "Lim", "Wick"};
+
+    @Mock
+    private EmployeeDAO repository;
+
+    @Mock
+    private JdbcTemplate master;
+
+    private EmployeeTableLoader loader;
+
+    private EmployeeBitmapIndex index;
+
+    @BeforeEach
+    void initMocks() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        loader = new EmployeeTableLoader(master);
+        index = new EmployeeBitmapIndex(repository, loader, true, 100, 1);
+        index.register();
+
+        // Loads 100 employees of ages 0 to 99 cycling through LAST_NAMES, of which those older than 49 are eligible
+        ResultSet rs = mock(ResultSet.class);
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (int i = 0; i < 100; i++) {
+                when(rs.getLong(1)).thenReturn(i + 1L);
+                when(rs.getString(2)).thenReturn("John");
+                when(rs.getString(3)).thenReturn(LAST_NAMES[i % LAST_NAMES.length]);
+                when(rs.getInt(4)).thenReturn(i);
+                when(rs.getBoolean(5)).thenReturn(i > 49);
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(master).query(anyString(), any(RowCallbackHandler.class));
+        loader.reload();
+    }
+
+    @Test
+    void match_eligibleAgeRangeAndLastNamePrefix_IntersectsBitmaps() {
+        Roaring64Bitmap matched = index.match(new EmployeeFilter(true, 40, 55, null, List.of("t")));
+
+        // Ages 50 to 54 are ids 51 to 55, of which Tan and Teo are those with id % 4 of 1 or 2
+        assertArrayEquals(new long[]{53, 54}, matched.toArray());
+    }
+
+    @Test
+    void match_severalPrefixes_UnionOfPrefixes() {
+        Roaring64Bitmap matched = index.match(new EmployeeFilter(null, null, 8, null, List.of("l", "w")));
+
+        assertArrayEquals(new long[]{3, 4, 7, 8}, matched.toArray());
+    }
+
+    @Test
+    void writes_savedDeletedAndGranted_AppliedToBitmaps() {
+        index.onSaved(new Employee(1L, "John", "Tan", 0, false), new Employee(1L, "John", "Lim", 45, false));
+        index.onDeleted(new Employee(2L, "John", "Teo", 1, false));
+        index.onEligibilityGranted(44, 1, 47, 4, null);
+
+        assertArrayEquals(new long[]{1, 46, 47},
+                index.match(new EmployeeFilter(true, 45, 50, null, null)).toArray());
+        assertArrayEquals(new long[]{48, 49, 50},
+                index.match(new EmployeeFilter(false, 45, 50, null, null)).toArray());
+        assertFalse(index.match(new EmployeeFilter(null, null, null, null, List.of("Teo"))).contains(2));
+    }
+}
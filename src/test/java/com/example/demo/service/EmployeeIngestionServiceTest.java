@@ -0,0 +1,103 @@
+package com.example.demo.service;
+
+import com.example.demo.exception.EmployeeIngestionException;
+import com.example.demo.model.Employee;
+import com.example.demo.model.IngestionSummary;
+import com.example.demo.repository.EmployeeDAO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EmployeeIngestionServiceTest {
+
+    private static final String VALID_LINE = "{\"firstName\":\"John\",\"lastName\":\"Wick\",\"age\":55,\"eligibility\":false}";
+
+    @Mock
+    private EmployeeDAO repository;
+
+    private EmployeeIngestionService service;
+
+    @BeforeEach
+    void initMocks() {
+        MockitoAnnotations.openMocks(this);
+        service = new EmployeeIngestionService(repository, new ObjectMapper(), 2, 10, 150);
+    }
+
+    private static byte[] ndjson(String... lines) {
+        return String.join("\n", lines).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void ingest_fiveValidLines_SavedInChunksOfTwo() throws EmployeeIngestionException {
+        byte[] body = ndjson(VALID_LINE, VALID_LINE, VALID_LINE, VALID_LINE, VALID_LINE);
+
+        IngestionSummary summary = service.ingest(new ByteArrayInputStream(body), false);
+
+        assertEquals(5, summary.getAcceptedCount());
+        assertEquals(0, summary.getRejectedCount());
+        assertEquals(5, summary.getLastCommittedLine());
+        verify(repository, times(3)).saveAll(ArgumentMatchers.<List<Employee>>any());
+    }
+
+    @Test
+    void ingest_malformedAndInvalidAgeLines_LinesRejected() throws EmployeeIngestionException {
+        byte[] body = ndjson(VALID_LINE, "{not json", "", "{\"firstName\":\"John\",\"age\":-1}", VALID_LINE,
+                "{\"firstName\":\"John\",\"age\":151}");
+
+        IngestionSummary summary = service.ingest(new ByteArrayInputStream(body), false);
+
+        assertEquals(2, summary.getAcceptedCount());
+        assertEquals(3, summary.getRejectedCount());
+        assertEquals(List.of(2L, 4L, 6L), summary.getRejectedLines());
+        assertFalse(summary.isRejectedLinesTruncated());
+    }
+
+    @Test
+    void ingest_gzipBody_Ok() throws EmployeeIngestionException, IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(ndjson(VALID_LINE, VALID_LINE, VALID_LINE));
+        }
+
+        IngestionSummary summary = service.ingest(new ByteArrayInputStream(compressed.toByteArray()), true);
+
+        assertEquals(3, summary.getAcceptedCount());
+    }
+
+    @Test
+    void ingest_chunkViolatesConstraint_OnlyOffendingLineRejected() throws EmployeeIngestionException {
+        when(repository.saveAll(ArgumentMatchers.<List<Employee>>any()))
+                .thenThrow(new DataIntegrityViolationException("..."));
+        doAnswer(invocation -> {
+            Employee employee = invocation.getArgument(0);
+            if ("Bad".equals(employee.getLastName())) {
+                throw new DataIntegrityViolationException("...");
+            }
+            return employee;
+        }).when(repository).save(ArgumentMatchers.any(Employee.class));
+
+        byte[] body = ndjson(VALID_LINE, "{\"firstName\":\"John\",\"lastName\":\"Bad\",\"age\":55}");
+
+        IngestionSummary summary = service.ingest(new ByteArrayInputStream(body), false);
+
+        assertEquals(1, summary.getAcceptedCount());
+        assertEquals(List.of(2L), summary.getRejectedLines());
+    }
+}
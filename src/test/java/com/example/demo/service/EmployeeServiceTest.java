@@ -1,20 +1,36 @@
 package com.example.demo.service;
 
+import com.example.demo.exception.InvalidCursorException;
 import com.example.demo.exception.InvalidEmployeeAgeException;
 import com.example.demo.model.Employee;
+import com.example.demo.model.EmployeeCursor;
+import com.example.demo.model.EmployeeFilter;
+import com.example.demo.model.EmployeePage;
+import com.example.demo.model.EmployeeRecord;
+import com.example.demo.model.Versioned;
 import com.example.demo.repository.EmployeeDAO;
+import com.example.demo.repository.EmployeeGroupCommitter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentMatchers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -32,6 +48,27 @@ class EmployeeServiceTest {
     @Mock
     private EmployeeDAO repository;
 
+    @Mock
+    private EligibilityCounter eligibilityCounter;
+
+    @Mock
+    private FirstNameDictionary firstNameDictionary;
+
+    @Mock
+    private EmployeeSnapshot snapshot;
+
+    @Mock
+    private AgeIndex ageIndex;
+
+    @Mock
+    private EmployeeBitmapIndex bitmapIndex;
+
+    @Mock
+    private EmployeeGroupCommitter groupCommitter;
+
+    @Spy
+    private SingleFlight singleFlight = new SingleFlight(true, 0, new SimpleMeterRegistry());
+
     @InjectMocks
     @Autowired
     private EmployeeService service;
@@ -50,6 +87,7 @@ class EmployeeServiceTest {
          * necessary.
          */
         MockitoAnnotations.openMocks(this);
+        when(ageIndex.getMaxAge()).thenReturn(150);
     }
 
     @Test
@@ -62,15 +100,120 @@ class EmployeeServiceTest {
     }
 
     @Test
-    void getEmployees_callsGetForAllEmployees_Ok() throws InvalidEmployeeAgeException {
-        ArrayList<Employee> dummyList = new ArrayList<>(Arrays.asList(DUMMY_EMPLOYEES));
+    void saveEmployee_ageAboveAgeIndexDomain_InvalidEmployeeAgeException() {
+        Employee employee = new Employee("John", "Wick", 151, false);
 
-        when(repository.findAll()).thenReturn(dummyList);
+        assertThrows(InvalidEmployeeAgeException.class, () -> service.saveEmployee(employee));
+        verify(repository, never()).save(ArgumentMatchers.any(Employee.class));
+    }
+
+    @Test
+    void getEmployees_callsGetForAllEmployeeRecords_Ok() throws InvalidEmployeeAgeException {
+        EmployeeRecord record = new EmployeeRecord(1L, "John", "Wick", 55, false);
+        when(repository.findAllRecords())
+                .thenReturn(new Versioned<>("employees-3-7-1", List.of(record, record, record)));
 
-        ArrayList<Employee> result = service.getEmployees();
+        Versioned<ArrayList<EmployeeRecord>> result = service.getEmployees();
 
-        for (Employee e: result) {
-            assertEquals(DUMMY_EMPLOYEE, e);
+        assertEquals("employees-3-7-1", result.version());
+        assertEquals(3, result.value().size());
+        for (EmployeeRecord e: result.value()) {
+            assertEquals(record, e);
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    void getEmployeesOlderThan_callsRecordFinder_Ok() {
+        EmployeeRecord record = new EmployeeRecord(1L, "John", "Wick", 55, false);
+        when(repository.findRecordsByEligibilityAndAgeAfterOrderByAgeAsc(false, 40))
+                .thenReturn(new Versioned<>("employees-7", List.of(record)));
+
+        ArrayList<EmployeeRecord> result = service.getEmployeesOlderThan(false, 40);
+
+        assertEquals(List.of(record), result);
+    }
+
+    @Test
+    void addEligibilityAfterAge_callsBulkUpdate_ReturnsUpdatedCount() {
+        when(repository.addEligibilityAfterAge(30)).thenReturn(42L);
+
+        long result = service.addEligibilityAfterAge(30);
+
+        assertEquals(42L, result);
+    }
+
+    @Test
+    void streamEmployees_passesEveryEmployeeToConsumer_Ok() {
+        doAnswer(invocation -> {
+            Consumer<Employee> consumer = invocation.getArgument(0);
+            Arrays.stream(DUMMY_EMPLOYEES).forEach(consumer);
+            return null;
+        }).when(repository).forEachEmployee(ArgumentMatchers.any());
+
+        List<Employee> result = new ArrayList<>();
+        service.streamEmployees(result::add);
+
+        assertEquals(DUMMY_EMPLOYEES.length, result.size());
+    }
+
+    @Test
+    void getEmployeePage_moreEmployeesThanSize_NextCursorAfterLastEmployee() throws InvalidCursorException {
+        List<Employee> employees = List.of(
+                new Employee(1L, "John", "Wick1", 30, false),
+                new Employee(2L, "John", "Wick2", 40, false),
+                new Employee(3L, "John", "Wick3", 50, false));
+        when(repository.findByIdGreaterThanOrderByIdAsc(ArgumentMatchers.eq(Long.MIN_VALUE),
+                ArgumentMatchers.any())).thenReturn(employees);
+
+        EmployeePage page = service.getEmployeePage(null, 2, null);
+
+        assertEquals(2, page.employees().size());
+        assertEquals(new EmployeeCursor(null, null, 2L), EmployeeCursor.decode(page.nextCursor()));
+    }
+
+    @Test
+    void getEmployeePage_ageOrderedCursor_SeeksAfterAgeAndId() throws InvalidCursorException {
+        String cursor = new EmployeeCursor(false, 40, 2L).encode();
+        when(repository.findByEligibilityAfterAgeAndId(ArgumentMatchers.eq(false), ArgumentMatchers.eq(40),
+                ArgumentMatchers.eq(2L), ArgumentMatchers.any()))
+                .thenReturn(List.of(new Employee(3L, "John", "Wick3", 50, false)));
+
+        EmployeePage page = service.getEmployeePage(cursor, 2, null);
+
+        assertEquals(1, page.employees().size());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void getEmployeePage_malformedCursor_ThrowsInvalidCursor() {
+        assertThrows(InvalidCursorException.class, () -> service.getEmployeePage("not-a-cursor", 2, null));
+    }
+
+    @Test
+    void filterEmployees_fewCandidatesMatch_NextBatchSizedByMatchRatio() {
+        Roaring64Bitmap candidates = new Roaring64Bitmap();
+        candidates.addRange(1, 101);
+        when(bitmapIndex.match(ArgumentMatchers.any())).thenReturn(candidates);
+        when(repository.findAllById(ArgumentMatchers.any())).thenAnswer(invocation -> {
+            List<Employee> employees = new ArrayList<>();
+            for (Long id : invocation.<Iterable<Long>>getArgument(0)) {
+                employees.add(new Employee(id, "John", id % 50 == 0 ? "Tan" : "Teo", 30, false));
+            }
+            return employees;
+        });
+
+        List<Employee> matched = service.filterEmployees(
+                new EmployeeFilter(null, null, null, null, List.of("Tan")), 2);
+
+        assertEquals(List.of(50L, 100L), matched.stream().map(Employee::getId).toList());
+        verify(repository, times(2)).findAllById(ArgumentMatchers.any());
+    }
+
+    @Test
+    void filterEmployees_indexNotLoaded_FilterAndLimitRunInDb() {
+        EmployeeFilter filter = new EmployeeFilter(true, 30, null, null, null);
+        when(repository.findByFilter(filter, 10)).thenReturn(List.of(DUMMY_EMPLOYEE));
+
+        assertEquals(List.of(DUMMY_EMPLOYEE), service.filterEmployees(filter, 10));
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Employee;
+import com.example.demo.repository.EmployeeDAO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class EmployeeSnapshotTest {
+
+    @Mock
+    private EmployeeDAO repository;
+
+    @Mock
+    private JdbcTemplate master;
+
+    private EmployeeTableLoader loader;
+
+    private EmployeeSnapshot snapshot;
+
+    @BeforeEach
+    void initMocks() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        loader = new EmployeeTableLoader(master);
+        snapshot = new EmployeeSnapshot(repository, loader, true);
+        snapshot.register();
+
+        // Loads 100 employees of ages 0 to 99, of which those older than 49 are eligible
+        ResultSet rs = mock(ResultSet.class);
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (int i = 0; i < 100; i++) {
+                when(rs.getLong(1)).thenReturn(i + 1L);
+                when(rs.getString(2)).thenReturn("John");
+                when(rs.getString(3)).thenReturn("Wick");
+                when(rs.getInt(4)).thenReturn(i);
+                when(rs.getBoolean(5)).thenReturn(i > 49);
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(master).query(anyString(), any(RowCallbackHandler.class));
+    }
+
+    @Test
+    void count_notLoaded_Unknown() {
+        assertFalse(snapshot.isLoaded());
+        assertEquals(-1, snapshot.count(true, null));
+    }
+
+    @Test
+    void count_loaded_CountsByEligibilityAndAge() {
+        loader.reload();
+
+        assertEquals(100, snapshot.count(null, null));
+        assertEquals(50, snapshot.count(true, null));
+        assertEquals(50, snapshot.count(false, null));
+        assertEquals(19, snapshot.count(null, 80));
+        assertEquals(30, snapshot.count(false, 19));
+    }
+
+    @Test
+    void writes_afterLoad_AppliedToSnapshot() {
+        loader.reload();
+
+        snapshot.onDeleted(new Employee(100L, "John", "Wick", 99, true));
+        snapshot.onSaved(null, new Employee(101L, "Jane", "Wick", 20, false));
+        snapshot.onEligibilityGranted(10, 1, 30, 19, null);
+
+        assertEquals(100, snapshot.count(null, null));
+        assertEquals(68, snapshot.count(true, null));
+        assertEquals(21, snapshot.count(false, 19));
+    }
+
+    @Test
+    void rowsById_manyPutsAndRemoves_RowsFoundUntilRemoved() {
+        EmployeeSnapshot.RowsById rowsById = new EmployeeSnapshot.RowsById(8);
+        for (int row = 0; row < 10_000; row++) {
+            rowsById.put(row * 7L, row);
+        }
+        for (int row = 0; row < 10_000; row += 2) {
+            assertEquals(row, rowsById.remove(row * 7L));
+        }
+
+        for (int row = 0; row < 10_000; row++) {
+            assertEquals(row % 2 == 0 ? EmployeeSnapshot.RowsById.NO_ROW : row, rowsById.get(row * 7L));
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.demo.service;
+
+import com.example.demo.model.AgeCount;
+import com.example.demo.model.EmployeeStats;
+import com.example.demo.repository.EmployeeDAO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EmployeeStatsServiceTest {
+
+    @Mock
+    private EmployeeDAO repository;
+
+    @Mock
+    private AgeIndex ageIndex;
+
+    private EmployeeStatsService statsService;
+
+    @BeforeEach
+    void initMocks() {
+        MockitoAnnotations.openMocks(this);
+        statsService = new EmployeeStatsService(repository, ageIndex, 60000);
+        when(ageIndex.getMaxAge()).thenReturn(150);
+        when(ageIndex.getCounts()).thenReturn(null);
+        when(repository.countByEligibilityAndAge()).thenReturn(List.of(
+                new AgeCount(false, 21, 2L), new AgeCount(false, 25, 2L), new AgeCount(true, 47, 1L)));
+    }
+
+    @Test
+    void getStats_indexNotBuilt_ComputedFromGroupedQueryOnce() {
+        EmployeeStats stats = statsService.getStats(10);
+        statsService.getStats(10);
+
+        verify(repository, times(1)).countByEligibilityAndAge();
+        assertEquals(1, stats.eligibleCount());
+        assertEquals(4, stats.ineligibleCount());
+        assertEquals(List.of(new EmployeeStats.AgeBucket(20, 30, 0, 4), new EmployeeStats.AgeBucket(30, 40, 0, 0),
+                new EmployeeStats.AgeBucket(40, 50, 1, 0)), stats.ageHistogram());
+        assertEquals(new EmployeeStats.AgeSummary(21, 25, 23.0), stats.ineligible());
+        assertEquals(new EmployeeStats.AgeSummary(47, 47, 47.0), stats.eligible());
+    }
+
+    @Test
+    void getStats_noEmployees_EmptyHistogramAndSummaries() {
+        when(ageIndex.getCounts()).thenReturn(List.of());
+
+        EmployeeStats stats = statsService.getStats(5);
+
+        assertTrue(stats.ageHistogram().isEmpty());
+        assertEquals(new EmployeeStats.AgeSummary(null, null, null), stats.eligible());
+    }
+
+    @Test
+    void getStats_widerThanAgesAndAgeOverMax_OneBucketWithAgeClampedLikeIndex() {
+        when(repository.countByEligibilityAndAge()).thenReturn(List.of(new AgeCount(true, 200, 1L)));
+
+        EmployeeStats stats = statsService.getStats(Integer.MAX_VALUE);
+
+        assertEquals(151, stats.bucketWidth());
+        assertEquals(List.of(new EmployeeStats.AgeBucket(0, 151, 1, 0)), stats.ageHistogram());
+        assertEquals(new EmployeeStats.AgeSummary(150, 150, 150.0), stats.eligible());
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Employee;
+import com.example.demo.model.FirstNameCount;
+import com.example.demo.repository.EmployeeDAO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+class FirstNameDictionaryTest {
+
+    @Mock
+    private EmployeeDAO repository;
+
+    private FirstNameDictionary dictionary;
+
+    @BeforeEach
+    void initMocks() {
+        MockitoAnnotations.openMocks(this);
+        dictionary = new FirstNameDictionary(repository);
+        when(repository.countByFirstNameInMaster()).thenReturn(List.of(
+                new FirstNameCount("John", 3L), new FirstNameCount("Born", 1L), new FirstNameCount("Jane", 2L)));
+        dictionary.rebuild();
+    }
+
+    @Test
+    void getMostCommon_two_MostCommonFirst() {
+        assertEquals(List.of(new FirstNameCount("John", 3L), new FirstNameCount("Jane", 2L)),
+                dictionary.getMostCommon(2));
+    }
+
+    @Test
+    void writes_lastEmployeeOfNameRenamedAndNewNameAdded_DistinctNamesUpdated() {
+        dictionary.onSaved(new Employee(1L, "Born", "Wick", 55, false), new Employee(1L, "Jane", "Wick", 55, false));
+        dictionary.onSaved(null, new Employee(2L, "Bob", "Wick", 55, false));
+
+        List<String> names = dictionary.getDistinctFirstNames();
+        names.sort(null);
+        assertEquals(List.of("Bob", "Jane", "John"), names);
+        assertEquals(new FirstNameCount("Jane", 3L), dictionary.getMostCommon(1).get(0));
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.demo.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void execute_concurrentCallsOfSameKey_QueryRunOnce() throws Exception {
+        SingleFlight singleFlight = new SingleFlight(true, 0, meterRegistry);
+        AtomicInteger queries = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Long> leader = executor.submit(() -> singleFlight.execute("count", () -> {
+                queries.incrementAndGet();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+                return 42L;
+            }));
+            while (queries.get() == 0) {
+                Thread.onSpinWait();
+            }
+            Future<Long> follower = executor.submit(() -> singleFlight.execute("count", () -> {
+                queries.incrementAndGet();
+                return -1L;
+            }));
+            while (meterRegistry.find("employee.reads.collapsed").counter() == null) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            assertEquals(42L, leader.get(5, TimeUnit.SECONDS));
+            assertEquals(42L, follower.get(5, TimeUnit.SECONDS));
+            assertEquals(1, queries.get());
+            assertEquals(1, meterRegistry.get("employee.reads.collapsed").tag("key", "count").counter().count());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void execute_afterCompletionWithoutLinger_QueryRunAgain() {
+        SingleFlight singleFlight = new SingleFlight(true, 0, meterRegistry);
+        AtomicInteger queries = new AtomicInteger();
+
+        singleFlight.execute("count", queries::incrementAndGet);
+        singleFlight.execute("count", queries::incrementAndGet);
+
+        assertEquals(2, queries.get());
+    }
+
+    @Test
+    void execute_withinLinger_ResultShared() {
+        SingleFlight singleFlight = new SingleFlight(true, 60000, meterRegistry);
+        AtomicInteger queries = new AtomicInteger();
+
+        singleFlight.execute("count", queries::incrementAndGet);
+
+        assertEquals(1, singleFlight.execute("count", queries::incrementAndGet));
+        assertEquals(2, singleFlight.execute("other", queries::incrementAndGet));
+    }
+}